@@ -0,0 +1,80 @@
+package com.reactive.spring.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.reactive.spring.domain.MovieInfo;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+
+/**
+ * JSON against the binary codecs MovieInfoCodecConfig offers, encode/decode throughput of a single MovieInfo
+ * plus its encoded size, reported as the wireBytes secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieInfoCodecBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    String format;
+
+    @Param({"0", "4", "64"})
+    int castSize;
+
+    ObjectMapper objectMapper;
+
+    MovieInfo movieInfo;
+
+    byte[] encoded;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class WireSize {
+
+        public long wireBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            wireBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case "smile" -> MovieInfoFixtures.binaryObjectMapper(new SmileFactory());
+            case "cbor" -> MovieInfoFixtures.binaryObjectMapper(new CBORFactory());
+            default -> MovieInfoFixtures.objectMapper();
+        };
+        movieInfo = MovieInfoFixtures.movieInfo("abc", castSize);
+        encoded = objectMapper.writeValueAsBytes(movieInfo);
+    }
+
+    @Benchmark
+    public byte[] encode(WireSize wireSize) throws IOException {
+        var bytes = objectMapper.writeValueAsBytes(movieInfo);
+        //set, not added, the same size for every call
+        wireSize.wireBytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public MovieInfo decode() throws IOException {
+        return objectMapper.readValue(encoded, MovieInfo.class);
+    }
+}
@@ -0,0 +1,41 @@
+package com.reactive.spring.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.reactive.spring.domain.MovieInfo;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+final class MovieInfoFixtures {
+
+    private MovieInfoFixtures() {
+    }
+
+    static MovieInfo movieInfo(String id, int castSize) {
+        var cast = new ArrayList<String>(castSize);
+        for (int i = 0; i < castSize; i++) {
+            cast.add("Cast Member " + i);
+        }
+        return new MovieInfo(id, "Dark Knight Rises", 2012, cast, LocalDate.parse("2012-07-20"), 3L,
+                Instant.parse("2024-06-24T10:15:30Z"));
+    }
+
+    //same setup as the ObjectMapper spring boot gives the webflux codecs
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    //same setup as MovieInfoCodecConfig gives the binary codecs
+    static ObjectMapper binaryObjectMapper(JsonFactory factory) {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .factory(factory)
+                .build();
+    }
+}
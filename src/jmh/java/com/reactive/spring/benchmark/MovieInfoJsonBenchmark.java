@@ -0,0 +1,53 @@
+package com.reactive.spring.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactive.spring.domain.MovieInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+
+/**
+ * Jackson encode/decode of a single MovieInfo, LocalDate release_date included, for growing cast lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieInfoJsonBenchmark {
+
+    @Param({"0", "4", "64"})
+    int castSize;
+
+    ObjectMapper objectMapper;
+
+    MovieInfo movieInfo;
+
+    byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = MovieInfoFixtures.objectMapper();
+        movieInfo = MovieInfoFixtures.movieInfo("abc", castSize);
+        json = objectMapper.writeValueAsBytes(movieInfo);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(movieInfo);
+    }
+
+    @Benchmark
+    public MovieInfo decode() throws IOException {
+        return objectMapper.readValue(json, MovieInfo.class);
+    }
+}
@@ -0,0 +1,46 @@
+package com.reactive.spring.benchmark;
+
+import com.reactive.spring.MoviesInfoServicesApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from main to readiness of MoviesInfoServicesApplication, one cold start per fork.
+ * run() returns after the ApplicationRunners, which is when readiness flips to ACCEPTING_TRAFFIC.
+ * warmup=true needs a mongo on localhost:27017. Compare against the fast-startup build with
+ * -jvmArgsAppend "-XX:SharedArchiveFile=target/application/application.jsa -Dspring.aot.enabled=true"
+ * after mvn -P fast-startup,benchmark package.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class MovieInfoStartupBenchmark {
+
+    @Param({"false"})
+    boolean warmup;
+
+    @Benchmark
+    public void startToReady() {
+        //command line arguments, default properties would lose against application.yml
+        var context = new SpringApplicationBuilder(MoviesInfoServicesApplication.class)
+                .run("--server.port=0",
+                        "--movieinfo.warmup.enabled=" + warmup,
+                        "--movieinfo.indexes.ensure-on-startup=false",
+                        "--movieinfo.read-model.load-on-startup=false");
+        context.close();
+    }
+}
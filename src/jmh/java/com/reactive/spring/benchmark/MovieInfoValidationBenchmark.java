@@ -0,0 +1,67 @@
+package com.reactive.spring.benchmark;
+
+import com.reactive.spring.domain.MovieInfo;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+
+/**
+ * Bean validation of MovieInfo, the work @Valid adds to every POST.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieInfoValidationBenchmark {
+
+    @Param({"0", "4", "64"})
+    int castSize;
+
+    ValidatorFactory validatorFactory;
+
+    Validator validator;
+
+    MovieInfo valid;
+
+    MovieInfo invalid;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        valid = MovieInfoFixtures.movieInfo("abc", castSize);
+        invalid = MovieInfoFixtures.movieInfo("abc", castSize);
+        invalid.setName("");
+        invalid.setYear(-1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<MovieInfo>> validMovieInfo() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<MovieInfo>> invalidMovieInfo() {
+        return validator.validate(invalid);
+    }
+}
@@ -0,0 +1,151 @@
+package com.reactive.spring.benchmark;
+
+import com.reactive.spring.controller.MoviesInfoController;
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.domain.MovieInfoValidators;
+import com.reactive.spring.exceptionHandler.GlobleErrorHandler;
+import com.reactive.spring.services.MovieInfoServices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Whole MoviesInfoController request path (routing, codecs, validation, advice) against a
+ * stubbed MovieInfoServices, so mongo is out of the picture and only per-request cost is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoviesInfoControllerBenchmark {
+
+    @Param({"4", "64"})
+    int castSize;
+
+    @Param({"100"})
+    int listSize;
+
+    AnnotationConfigApplicationContext context;
+
+    WebTestClient webTestClient;
+
+    MovieInfo movieInfo;
+
+    @Configuration
+    @EnableWebFlux
+    static class BenchmarkWebConfig {
+    }
+
+    static class StubMovieInfoServices extends MovieInfoServices {
+
+        final MovieInfo movieInfo;
+
+        final List<MovieInfo> movieInfos;
+
+        StubMovieInfoServices(MovieInfo movieInfo, List<MovieInfo> movieInfos) {
+            this.movieInfo = movieInfo;
+            this.movieInfos = movieInfos;
+        }
+
+        @Override
+        public Mono<MovieInfo> getMovieInfoById(String id) {
+            return Mono.just(movieInfo);
+        }
+
+        @Override
+        public Flux<MovieInfo> getAllMovieInfos() {
+            return Flux.fromIterable(movieInfos);
+        }
+
+        @Override
+        public Mono<MovieInfoValidators> getMovieInfoListValidators(Integer year, String cast) {
+            return Mono.just(new MovieInfoValidators(movieInfos.size(), null));
+        }
+
+        @Override
+        public Mono<MovieInfo> addMovieInfo(MovieInfo movieInfo) {
+            return Mono.just(movieInfo);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        movieInfo = MovieInfoFixtures.movieInfo("abc", castSize);
+        var movieInfos = new ArrayList<MovieInfo>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            movieInfos.add(MovieInfoFixtures.movieInfo("id" + i, castSize));
+        }
+        context = new AnnotationConfigApplicationContext();
+        //registered as a ready singleton so its @Autowired fields are left alone
+        context.getBeanFactory().registerSingleton("movieInfoServices", new StubMovieInfoServices(movieInfo, movieInfos));
+        context.register(BenchmarkWebConfig.class, MoviesInfoController.class, GlobleErrorHandler.class);
+        context.refresh();
+        webTestClient = WebTestClient.bindToApplicationContext(context).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] getMovieInfoById() {
+        return webTestClient.get()
+                .uri("/v1/movieinfos/{id}", "abc")
+                .exchange()
+                .expectBody()
+                .returnResult()
+                .getResponseBody();
+    }
+
+    @Benchmark
+    public byte[] getAllMovieInfos() {
+        return webTestClient.get()
+                .uri("/v1/movieinfos")
+                .exchange()
+                .expectBody()
+                .returnResult()
+                .getResponseBody();
+    }
+
+    @Benchmark
+    public byte[] getAllMovieInfosNdjson() {
+        return webTestClient.get()
+                .uri("/v1/movieinfos")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectBody()
+                .returnResult()
+                .getResponseBody();
+    }
+
+    @Benchmark
+    public byte[] addMovieInfo() {
+        return webTestClient.post()
+                .uri("/v1/movieinfos")
+                .bodyValue(movieInfo)
+                .exchange()
+                .expectBody()
+                .returnResult()
+                .getResponseBody();
+    }
+}
@@ -0,0 +1,112 @@
+package com.reactive.spring.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactive.spring.config.MovieInfoCacheProperties;
+import com.reactive.spring.domain.MovieInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for MovieInfo keyed by movieInfoId.
+ * Caffeine gives us the size/ttl bound with W-TinyLFU eviction, and because the
+ * async cache stores the in-flight future, concurrent misses for the same id
+ * share a single mongo call.
+ */
+@Component
+@Slf4j
+public class MovieInfoCache implements MeterBinder {
+
+    private final MovieInfoCacheProperties properties;
+
+    private final AsyncCache<String, MovieInfo> cache;
+
+    public MovieInfoCache(MovieInfoCacheProperties properties) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        log.info("MovieInfo cache enabled : {} , maximumSize : {} , expireAfterWrite : {} ",
+                properties.isEnabled(), properties.getMaximumSize(), properties.getExpireAfterWrite());
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public Mono<MovieInfo> get(String id, Function<String, Mono<MovieInfo>> loader) {
+        if (!isEnabled()) {
+            return loader.apply(id);
+        }
+        //empty result completes the future with null, caffeine drops it so unknown ids are not cached
+        //suppressCancel so one cancelled subscriber does not cancel the load shared with the others
+        return Mono.defer(() -> Mono.fromFuture(
+                cache.get(id, (key, executor) -> loader.apply(key).toFuture()), true));
+    }
+
+    /**
+     * @return the already loaded entries among ids, loads still in flight count as absent
+     */
+    public Map<String, MovieInfo> getAllPresent(Collection<String> ids) {
+        var present = new HashMap<String, MovieInfo>();
+        if (!isEnabled()) {
+            return present;
+        }
+        var entries = cache.asMap();
+        for (String id : ids) {
+            var future = entries.get(id);
+            if (future != null && future.isDone() && !future.isCompletedExceptionally()) {
+                var movieInfo = future.getNow(null);
+                if (movieInfo != null) {
+                    present.put(id, movieInfo);
+                }
+            }
+        }
+        return present;
+    }
+
+    public void put(MovieInfo movieInfo) {
+        if (isEnabled() && movieInfo != null && movieInfo.getMovieInfoId() != null) {
+            cache.put(movieInfo.getMovieInfoId(), CompletableFuture.completedFuture(movieInfo));
+        }
+    }
+
+    public void invalidate(String id) {
+        if (isEnabled() && id != null) {
+            cache.synchronous().invalidate(id);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    //picked up by spring boot, publishes cache.gets / cache.evictions / cache.size for cache=movieInfo
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "movieInfo");
+    }
+
+    public MovieInfoCacheStats stats() {
+        var stats = cache.synchronous().stats();
+        return new MovieInfoCacheStats(isEnabled(),
+                cache.synchronous().estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                stats.loadFailureCount());
+    }
+}
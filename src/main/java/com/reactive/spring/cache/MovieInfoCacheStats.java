@@ -0,0 +1,10 @@
+package com.reactive.spring.cache;
+
+public record MovieInfoCacheStats(boolean enabled,
+                                  long size,
+                                  long hitCount,
+                                  long missCount,
+                                  double hitRate,
+                                  long evictionCount,
+                                  long loadFailureCount) {
+}
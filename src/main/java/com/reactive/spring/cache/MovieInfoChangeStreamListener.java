@@ -0,0 +1,208 @@
+package com.reactive.spring.cache;
+
+import com.reactive.spring.config.MovieInfoCacheProperties;
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.services.MovieInfoChangeFeed;
+import com.reactive.spring.services.MovieInfoChangeNotifier;
+import com.reactive.spring.services.MovieInfoReadModelLoader;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tails the MovieInfo collection change stream so that writes made by any node
+ * are pushed into this node's MovieInfoCache and in-memory read models. The last
+ * seen resume token is persisted, so a reconnect or restart picks up where it
+ * left off instead of flushing the whole cache.
+ * Read models built from a snapshot are caught up by replayFrom, the stream is
+ * reopened at the cluster time the snapshot was taken at.
+ */
+@Component
+@ConditionalOnProperty(prefix = "movieinfo.cache.change-stream", name = "enabled", havingValue = "true")
+@Slf4j
+public class MovieInfoChangeStreamListener {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final MovieInfoCache movieInfoCache;
+
+    private final MovieInfoChangeNotifier movieInfoChangeNotifier;
+
+    private final ObjectProvider<MovieInfoReadModelLoader> readModelLoader;
+
+    private final MovieInfoCacheProperties.ChangeStream properties;
+
+    private final ResumeTokenStore resumeTokenStore;
+
+    private final AtomicReference<BsonValue> lastToken = new AtomicReference<>();
+
+    //where to open the stream when there is no token yet, set by replayFrom
+    private final AtomicReference<BsonTimestamp> startAt = new AtomicReference<>();
+
+    private Disposable subscription;
+
+    @Autowired
+    public MovieInfoChangeStreamListener(ReactiveMongoTemplate reactiveMongoTemplate,
+                                         MovieInfoCache movieInfoCache,
+                                         MovieInfoChangeNotifier movieInfoChangeNotifier,
+                                         ObjectProvider<MovieInfoReadModelLoader> readModelLoader,
+                                         MovieInfoCacheProperties cacheProperties) {
+        this(reactiveMongoTemplate, movieInfoCache, movieInfoChangeNotifier, readModelLoader, cacheProperties.getChangeStream(),
+                new ResumeTokenStore(reactiveMongoTemplate, cacheProperties.getChangeStream().getResumeTokenCollection(),
+                        nodeId(cacheProperties.getChangeStream().getNodeId())));
+    }
+
+    MovieInfoChangeStreamListener(ReactiveMongoTemplate reactiveMongoTemplate,
+                                  MovieInfoCache movieInfoCache,
+                                  MovieInfoChangeNotifier movieInfoChangeNotifier,
+                                  ObjectProvider<MovieInfoReadModelLoader> readModelLoader,
+                                  MovieInfoCacheProperties.ChangeStream properties,
+                                  ResumeTokenStore resumeTokenStore) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.movieInfoCache = movieInfoCache;
+        this.movieInfoChangeNotifier = movieInfoChangeNotifier;
+        this.readModelLoader = readModelLoader;
+        this.properties = properties;
+        this.resumeTokenStore = resumeTokenStore;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        log.info("Starting MovieInfo change stream listener");
+        subscription = resumeTokenStore.load()
+                //a replay position wins over the stored token, it may be older
+                .filter(token -> startAt.get() == null)
+                .doOnNext(lastToken::set)
+                .thenMany(Flux.defer(this::changes))
+                .doOnNext(this::apply)
+                .mapNotNull(ChangeStreamEvent::getResumeToken)
+                .doOnNext(lastToken::set)
+                .sample(properties.getTokenPersistInterval())
+                .concatMap(resumeTokenStore::save)
+                .onErrorResume(this::isHistoryLost, ex -> resetAfterHistoryLost())
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("MovieInfo change stream failed, resuming : {} ",
+                                signal.failure().getMessage())))
+                .subscribe();
+    }
+
+    /**
+     * Reopens the stream at operationTime and applies every change since, whether or not this node
+     * has already seen it. Used after the read models were loaded from a snapshot taken at that time,
+     * replaying a change twice only saves the same document again.
+     */
+    public synchronized void replayFrom(BsonTimestamp operationTime) {
+        log.info("Replaying MovieInfo changes since {} ", operationTime);
+        startAt.set(operationTime);
+        lastToken.set(null);
+        //not started yet, start() opens the stream there
+        if (subscription != null) {
+            subscription.dispose();
+            start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        var token = lastToken.get();
+        if (token != null) {
+            resumeTokenStore.save(token).block(Duration.ofSeconds(5));
+        }
+    }
+
+    private Flux<ChangeStreamEvent<MovieInfo>> changes() {
+        var options = ChangeStreamOptions.builder().returnFullDocumentOnUpdate();
+        var token = lastToken.get();
+        if (token != null) {
+            options.resumeAfter(token);
+        } else if (startAt.get() != null) {
+            options.resumeAt(startAt.get());
+        }
+        return reactiveMongoTemplate.changeStream(reactiveMongoTemplate.getCollectionName(MovieInfo.class),
+                options.build(), MovieInfo.class);
+    }
+
+    void apply(ChangeStreamEvent<MovieInfo> event) {
+        var operationType = event.getOperationType();
+        if (operationType == null) {
+            return;
+        }
+        switch (operationType) {
+            case INSERT, UPDATE, REPLACE -> {
+                var movieInfo = event.getBody();
+                if (movieInfo != null) {
+                    movieInfoCache.put(movieInfo);
+                    movieInfoChangeNotifier.saved(movieInfo);
+                } else {
+                    movieInfoCache.invalidate(documentId(event));
+                }
+            }
+            case DELETE -> {
+                var id = documentId(event);
+                movieInfoCache.invalidate(id);
+                movieInfoChangeNotifier.deleted(id);
+            }
+            case DROP, DROP_DATABASE, RENAME, INVALIDATE -> {
+                movieInfoCache.invalidateAll();
+                movieInfoChangeNotifier.cleared();
+            }
+            default -> {
+            }
+        }
+    }
+
+    private String documentId(ChangeStreamEvent<MovieInfo> event) {
+        return MovieInfoChangeFeed.documentId(event);
+    }
+
+    private boolean isHistoryLost(Throwable ex) {
+        return MovieInfoChangeFeed.isHistoryLost(ex);
+    }
+
+    private Flux<Void> resetAfterHistoryLost() {
+        log.warn("MovieInfo change stream resume token expired, flushing cache and reloading read models");
+        lastToken.set(null);
+        startAt.set(null);
+        movieInfoCache.invalidateAll();
+        movieInfoChangeNotifier.cleared();
+        var loader = readModelLoader.getIfAvailable();
+        return resumeTokenStore.clear()
+                //a snapshot is older than the history that was lost, reload from mongo
+                .then(loader == null ? Mono.empty() : loader.loadFromMongo().then())
+                .thenMany(Flux.error(new IllegalStateException("change stream history lost")));
+    }
+
+    private static String nodeId(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return configured;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "movies-info-services";
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.reactive.spring.cache;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the last change stream resume token of every node in a small mongo collection,
+ * one document per node : { _id : nodeId, token : resumeToken }.
+ */
+public class ResumeTokenStore {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final String collectionName;
+
+    private final String nodeId;
+
+    public ResumeTokenStore(ReactiveMongoTemplate reactiveMongoTemplate, String collectionName, String nodeId) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.collectionName = collectionName;
+        this.nodeId = nodeId;
+    }
+
+    public Mono<BsonValue> load() {
+        return reactiveMongoTemplate.getCollection(collectionName)
+                .flatMap(collection -> Mono.from(collection.withDocumentClass(BsonDocument.class)
+                        .find(Filters.eq("_id", nodeId))
+                        .first()))
+                .mapNotNull(document -> document.get("token"));
+    }
+
+    public Mono<Void> save(BsonValue token) {
+        var document = new BsonDocument("_id", new BsonString(nodeId)).append("token", token);
+        return reactiveMongoTemplate.getCollection(collectionName)
+                .flatMap(collection -> Mono.from(collection.withDocumentClass(BsonDocument.class)
+                        .replaceOne(Filters.eq("_id", nodeId), document, new ReplaceOptions().upsert(true))))
+                .then();
+    }
+
+    public Mono<Void> clear() {
+        return reactiveMongoTemplate.getCollection(collectionName)
+                .flatMap(collection -> Mono.from(collection.deleteOne(Filters.eq("_id", nodeId))))
+                .then();
+    }
+}
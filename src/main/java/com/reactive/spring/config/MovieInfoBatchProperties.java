@@ -0,0 +1,12 @@
+package com.reactive.spring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "movieinfo.batch")
+public class MovieInfoBatchProperties {
+
+    //distinct ids accepted by one batch lookup, all of them go into a single $in
+    private int maxIds = 500;
+}
@@ -0,0 +1,18 @@
+package com.reactive.spring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "movieinfo.bulk")
+public class MovieInfoBulkProperties {
+
+    //documents per unordered insertMany
+    private int batchSize = 1000;
+
+    //batches written to mongo at the same time, bounds how far ahead the request body is read
+    private int maxConcurrentBatches = 2;
+
+    //error messages kept per batch summary, the failed count is always exact
+    private int maxErrorsPerBatch = 10;
+}
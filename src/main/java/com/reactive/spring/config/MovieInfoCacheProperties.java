@@ -0,0 +1,35 @@
+package com.reactive.spring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "movieinfo.cache")
+public class MovieInfoCacheProperties {
+
+    //cache is opt-in, when disabled every read goes straight to mongo
+    private boolean enabled = false;
+
+    private long maximumSize = 10_000;
+
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+    private ChangeStream changeStream = new ChangeStream();
+
+    @Data
+    public static class ChangeStream {
+
+        //needs a replica set, standalone mongo does not support change streams
+        private boolean enabled = false;
+
+        //key under which this node stores its resume token, defaults to the host name
+        private String nodeId;
+
+        private String resumeTokenCollection = "movieInfoResumeTokens";
+
+        //how often the latest resume token is written back to mongo
+        private Duration tokenPersistInterval = Duration.ofSeconds(5);
+    }
+}
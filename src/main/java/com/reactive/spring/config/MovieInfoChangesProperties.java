@@ -0,0 +1,26 @@
+package com.reactive.spring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "movieinfo.changes")
+public class MovieInfoChangesProperties {
+
+    //events held for one slow subscriber before the overflow policy applies
+    private int bufferSize = 256;
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.LATEST;
+
+    //interval of the sse comment that keeps proxies from closing quiet connections
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    public enum OverflowPolicy {
+        //a full buffer discards the incoming event
+        DROP,
+        //a full buffer discards its oldest event to make room for the incoming one
+        LATEST
+    }
+}
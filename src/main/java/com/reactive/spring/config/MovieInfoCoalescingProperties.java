@@ -0,0 +1,11 @@
+package com.reactive.spring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "movieinfo.coalescing")
+public class MovieInfoCoalescingProperties {
+
+    private boolean enabled = true;
+}
@@ -0,0 +1,125 @@
+package com.reactive.spring.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary codecs for service to service callers, picked with Accept / Content-Type.
+ * Both mappers start from the ObjectMapper spring boot configures for JSON, so MovieInfo maps the same way,
+ * but write dates as numbers (release_date becomes [2012,7,20]) to skip date text formatting and parsing.
+ * JSON stays the default for anyone not asking for a binary type.
+ */
+@Configuration
+public class MovieInfoCodecConfig implements WebFluxConfigurer {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    //one smile value after another, written and flushed as the Flux produces them
+    public static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+
+    public static final String APPLICATION_CBOR_VALUE = "application/cbor";
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+
+    public MovieInfoCodecConfig(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        //mime types have to be passed along, the (ObjectMapper, MimeType...) constructors otherwise default to json
+        var smileMapper = binaryMapper().factory(new SmileFactory()).build();
+        var smileTypes = new MimeType[]{MimeType.valueOf(APPLICATION_SMILE_VALUE), MimeType.valueOf("application/*+x-jackson-smile")};
+        configurer.defaultCodecs().jackson2SmileEncoder(new CollectingSmileEncoder(smileMapper, smileTypes));
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, smileTypes));
+        //cbor decoding of a Flux is not supported by spring, cbor request bodies are single values only
+        var cborMapper = binaryMapper().factory(new CBORFactory()).build();
+        configurer.customCodecs().register(new CollectingCborEncoder(cborMapper));
+        configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+    }
+
+    private Jackson2ObjectMapperBuilder binaryMapper() {
+        var builder = objectMapperBuilder.getIfAvailable(Jackson2ObjectMapperBuilder::json);
+        return builder.featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    //both binary formats are written as one array once the Flux completes, only offered by bounded responses
+    //(by id, batch), unbounded listings offer application/stream+x-jackson-smile instead
+    private static Flux<DataBuffer> encodeCollected(AbstractJackson2Encoder encoder, Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                                    ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono<?> mono) {
+            //a single value (by id) is written as itself, not as a one element array
+            return mono.map(value -> encoder.encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+        var listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+        return Flux.from(inputStream)
+                .collectList()
+                .map(values -> encoder.encodeValue(values, bufferFactory, listType, mimeType, hints))
+                .flux();
+    }
+
+    /**
+     * Spring's cbor encoder refuses a Flux. It also only answers for an explicitly requested type,
+     * so cbor is offered by endpoints that list it in produces and never picked for a wildcard Accept.
+     */
+    static final class CollectingCborEncoder extends Jackson2CborEncoder {
+
+        CollectingCborEncoder(ObjectMapper objectMapper) {
+            super(objectMapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+            return mimeType != null && super.canEncode(elementType, mimeType);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                       ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            return encodeCollected(this, inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+    }
+
+    /**
+     * Spring's smile encoder wraps a non streaming Flux in JSON array brackets, which is not valid smile.
+     * application/stream+x-jackson-smile still streams one value at a time.
+     */
+    static final class CollectingSmileEncoder extends Jackson2SmileEncoder {
+
+        CollectingSmileEncoder(ObjectMapper objectMapper, MimeType... mimeTypes) {
+            super(objectMapper, mimeTypes);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                       ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            if (mimeType != null && getStreamingMediaTypes().stream().anyMatch(mimeType::isCompatibleWith)) {
+                return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+            }
+            return encodeCollected(this, inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.reactive.spring.config;
+
+import com.reactive.spring.controller.MovieInfoLoadSheddingFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//declared here rather than as a @Component so @WebFluxTest slices, which pick up every WebFilter, run without it
+@Configuration
+@ConditionalOnProperty(prefix = "movieinfo.concurrency", name = "enabled", matchIfMissing = true)
+public class MovieInfoConcurrencyConfig {
+
+    @Bean
+    public MovieInfoLoadSheddingFilter movieInfoLoadSheddingFilter(MovieInfoConcurrencyProperties properties,
+                                                                   MeterRegistry meterRegistry) {
+        return new MovieInfoLoadSheddingFilter(properties, meterRegistry);
+    }
+}
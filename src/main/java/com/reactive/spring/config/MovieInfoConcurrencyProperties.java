@@ -0,0 +1,49 @@
+package com.reactive.spring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "movieinfo.concurrency")
+public class MovieInfoConcurrencyProperties {
+
+    private boolean enabled = true;
+
+    //sent as Retry-After on a shed request
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    //recent latency above this multiple of the long term latency counts as queueing, the limit backs off
+    private double latencyTolerance = 2.0;
+
+    //multiplier applied to the limit on a back off
+    private double backoffRatio = 0.9;
+
+    private Budget read = new Budget(50, 10, 200);
+
+    private Budget write = new Budget(10, 2, 50);
+
+    //fixed permits for full listings and bulk uploads. they run for as long as their size takes, so their
+    //latency says nothing about queueing and they never move the read or write limit
+    private int streamLimit = 32;
+
+    @Data
+    public static class Budget {
+
+        private int initialLimit;
+
+        private int minLimit;
+
+        private int maxLimit;
+
+        public Budget() {
+        }
+
+        public Budget(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+    }
+}
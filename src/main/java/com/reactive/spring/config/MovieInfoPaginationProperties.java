@@ -0,0 +1,12 @@
+package com.reactive.spring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "movieinfo.pagination")
+public class MovieInfoPaginationProperties {
+
+    //larger limits are capped to this
+    private int maxLimit = 500;
+}
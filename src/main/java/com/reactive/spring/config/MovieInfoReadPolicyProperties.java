@@ -0,0 +1,54 @@
+package com.reactive.spring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "movieinfo.read-policy")
+public class MovieInfoReadPolicyProperties {
+
+    //deadline of a MovieInfoServices call, for Flux operations the longest wait for the first element. zero disables it
+    private Duration defaultTimeout = Duration.ofSeconds(5);
+
+    //per operation override of defaultTimeout, keyed by operation name e.g. getMovieInfoById
+    private Map<String, Duration> timeouts = new HashMap<>();
+
+    //mongo read preference name e.g. primary, secondaryPreferred, nearest. writes always go to the primary
+    private String defaultReadPreference = "primary";
+
+    //per operation override of defaultReadPreference
+    private Map<String, String> readPreferences = new HashMap<>();
+
+    private Hedging hedging = new Hedging();
+
+    @Data
+    public static class Hedging {
+
+        private boolean enabled = false;
+
+        //operations allowed to send a second query, only single document reads are ever hedged
+        private Set<String> operations = Set.of("getMovieInfoById");
+
+        //the hedge may be answered by a secondary : a hedged read never reports a just created document missing
+        //(an empty hedge is ignored) but may return it one replication lag behind its latest update
+        private String readPreference = "nearest";
+
+        //the hedge is sent once the first query is slower than this percentile of recent latencies
+        private double percentile = 0.95;
+
+        private Duration minDelay = Duration.ofMillis(2);
+
+        private Duration maxDelay = Duration.ofMillis(500);
+
+        //latencies recorded before the first hedge is sent
+        private int minSamples = 100;
+
+        //hedges per request at most, keeps a slow node from doubling the load on the others
+        private double budgetRatio = 0.1;
+    }
+}
@@ -0,0 +1,20 @@
+package com.reactive.spring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "movieinfo.snapshot")
+public class MovieInfoSnapshotProperties {
+
+    //snapshot files are only read from and written to this directory
+    private String directory = "snapshots";
+
+    //write buffer, one FileChannel write per fill
+    private DataSize bufferSize = DataSize.ofMegabytes(1);
+
+    //when set the read models are built from this snapshot at startup instead of a findAll,
+    //needs movieinfo.cache.change-stream.enabled to replay the changes made since it was taken
+    private String readModelSnapshot;
+}
@@ -0,0 +1,18 @@
+package com.reactive.spring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "movieinfo.stats")
+public class MovieInfoStatsProperties {
+
+    //how long an aggregation result is served from memory, zero runs every request against mongo
+    private Duration cacheTtl = Duration.ofSeconds(30);
+
+    private int topCastDefaultLimit = 10;
+
+    private int topCastMaxLimit = 100;
+}
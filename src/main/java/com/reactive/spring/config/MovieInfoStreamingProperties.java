@@ -0,0 +1,13 @@
+package com.reactive.spring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "movieinfo.streaming")
+public class MovieInfoStreamingProperties {
+
+    //documents requested from the mongo cursor at a time, streaming writers request one element per
+    //flush so without this every element would be its own getMore
+    private int cursorBatchSize = 256;
+}
@@ -0,0 +1,13 @@
+package com.reactive.spring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "movieinfo.suggest")
+public class MovieInfoSuggestProperties {
+
+    private int defaultLimit = 10;
+
+    private int maxLimit = 50;
+}
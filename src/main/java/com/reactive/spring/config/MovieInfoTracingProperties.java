@@ -0,0 +1,24 @@
+package com.reactive.spring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "movieinfo.tracing")
+public class MovieInfoTracingProperties {
+
+    private boolean enabled = true;
+
+    //share of calls traced, 0.0 - 1.0
+    private double defaultSampleRate = 0.01;
+
+    //per operation override of defaultSampleRate, keyed by operation name e.g. getMovieInfoById
+    private Map<String, Double> sampleRates = new HashMap<>();
+
+    //calls slower than this are always traced, sampled or not
+    private Duration slowThreshold = Duration.ofMillis(500);
+}
@@ -0,0 +1,25 @@
+package com.reactive.spring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "movieinfo.warmup")
+public class MovieInfoWarmupProperties {
+
+    private boolean enabled = true;
+
+    //driver connections opened up front, concurrent pings each take one from the pool
+    private int connections = 10;
+
+    //rounds of the hot read paths, enough for the JIT to compile them
+    private int iterations = 200;
+
+    //page size read per round
+    private int pageSize = 20;
+
+    //readiness turns green after this even when the warm-up has not finished
+    private Duration timeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,23 @@
+package com.reactive.spring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "movieinfo.write-batching")
+public class MovieInfoWriteBatchingProperties {
+
+    //off : every addMovieInfo is its own save
+    private boolean enabled = false;
+
+    //longest an insert waits for others to share its round trip
+    private Duration maxDelay = Duration.ofMillis(5);
+
+    //a batch is written as soon as it holds this many documents
+    private int maxBatchSize = 64;
+
+    //batches written to mongo at the same time
+    private int maxConcurrentBatches = 4;
+}
@@ -2,14 +2,11 @@ package com.reactive.spring.controller;
 
 import com.mongodb.MongoNodeIsRecoveringException;
 import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
-import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
-
 @RestController
 public class FluxAndMonoController {
 
@@ -26,12 +23,6 @@ public class FluxAndMonoController {
         return Mono.just("Amit")
                 .log();
     }
-    @GetMapping(value = "/stream" , produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<Long> stream(){
-        System.out.println("Hey i am in stream:-");
-        return Flux.interval(Duration.ofSeconds(1))
-                .log();
-    }
 
 
 }//class
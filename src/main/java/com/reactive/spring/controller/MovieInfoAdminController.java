@@ -0,0 +1,58 @@
+package com.reactive.spring.controller;
+
+import com.reactive.spring.cache.MovieInfoCache;
+import com.reactive.spring.cache.MovieInfoCacheStats;
+import com.reactive.spring.domain.MovieInfoSnapshotResult;
+import com.reactive.spring.exceptionHandler.InvalidRequestException;
+import com.reactive.spring.index.CastIndex;
+import com.reactive.spring.index.CastIndexStats;
+import com.reactive.spring.snapshot.MovieInfoSnapshots;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/v1/admin")
+@Slf4j
+public class MovieInfoAdminController {
+
+    @Autowired
+    private MovieInfoCache movieInfoCache;
+
+    @Autowired
+    private CastIndex castIndex;
+
+    @Autowired
+    private MovieInfoSnapshots movieInfoSnapshots;
+
+    @GetMapping("/cache/stats")
+    public Mono<MovieInfoCacheStats> getCacheStats(){
+        return Mono.fromSupplier(movieInfoCache::stats);
+    }
+
+    @GetMapping("/indexes/cast/stats")
+    public Mono<CastIndexStats> getCastIndexStats(){
+        return Mono.fromSupplier(castIndex::stats);
+    }
+
+    @PostMapping("/snapshots/{snapshot}/export")
+    public Mono<MovieInfoSnapshotResult> exportSnapshot(@PathVariable String snapshot){
+        return movieInfoSnapshots.export(snapshot);
+    }
+
+    @PostMapping("/snapshots/{snapshot}/import")
+    public Mono<MovieInfoSnapshotResult> importSnapshot(@PathVariable String snapshot,
+                                                        @RequestParam(value = "target", defaultValue = "mongo") String target){
+        return switch (target) {
+            case "mongo" -> movieInfoSnapshots.importToMongo(snapshot);
+            case "read-model" -> movieInfoSnapshots.importToReadModel(snapshot);
+            default -> Mono.error(new InvalidRequestException("target must be mongo or read-model"));
+        };
+    }
+}
@@ -0,0 +1,126 @@
+package com.reactive.spring.controller;
+
+import com.reactive.spring.config.MovieInfoConcurrencyProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD concurrency limit driven by observed latency.
+ * Two moving averages of request latency are kept, a short one for what requests see now and a long one
+ * for what they normally see. While the short one stays within latencyTolerance of the long one the limit
+ * grows by one per limit's worth of completed requests; once it rises above, or a request fails with a
+ * server error, requests are queueing somewhere (usually the mongo connection pool) and the limit is cut
+ * by backoffRatio, at most once per round trip so a single slow burst does not collapse it.
+ * The limit only grows while at least half of it is in use, an idle service keeps the limit it earned.
+ */
+final class MovieInfoConcurrencyLimiter {
+
+    private static final double SHORT_ALPHA = 0.1;
+
+    private static final double LONG_ALPHA = 0.002;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double latencyTolerance;
+
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Counter shed;
+
+    private volatile int limit;
+
+    //guarded by this
+    private double estimatedLimit;
+    private double shortLatency;
+    private double longLatency;
+    private long lastBackoff = Long.MIN_VALUE;
+
+    MovieInfoConcurrencyLimiter(String budget, MovieInfoConcurrencyProperties properties, MeterRegistry meterRegistry) {
+        var limits = switch (budget) {
+            case "read" -> properties.getRead();
+            case "write" -> properties.getWrite();
+            //min and max at the same value, the limit never moves
+            default -> new MovieInfoConcurrencyProperties.Budget(properties.getStreamLimit(), properties.getStreamLimit(),
+                    properties.getStreamLimit());
+        };
+        this.minLimit = Math.max(1, limits.getMinLimit());
+        this.maxLimit = Math.max(minLimit, limits.getMaxLimit());
+        this.latencyTolerance = properties.getLatencyTolerance();
+        this.backoffRatio = properties.getBackoffRatio();
+        this.estimatedLimit = Math.min(maxLimit, Math.max(minLimit, limits.getInitialLimit()));
+        this.limit = (int) estimatedLimit;
+        Gauge.builder("movieinfo.concurrency.limit", this, MovieInfoConcurrencyLimiter::limit)
+                .description("Concurrent MovieInfo requests currently admitted")
+                .tag("budget", budget)
+                .register(meterRegistry);
+        Gauge.builder("movieinfo.concurrency.inflight", inFlight, AtomicInteger::get)
+                .description("MovieInfo requests currently in flight")
+                .tag("budget", budget)
+                .register(meterRegistry);
+        shed = Counter.builder("movieinfo.concurrency.shed")
+                .description("MovieInfo requests rejected with 503 because the limit was reached")
+                .tag("budget", budget)
+                .register(meterRegistry);
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            var current = inFlight.get();
+            if (current >= limit) {
+                shed.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a permit, the latency of a completed request adjusts the limit.
+     */
+    void release(long startNanos, long endNanos, boolean failed) {
+        var saturated = inFlight.getAndDecrement() * 2 >= limit;
+        onSample(startNanos, endNanos, failed, saturated);
+    }
+
+    //cancelled requests say nothing about latency
+    void releaseIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void onSample(long startNanos, long endNanos, boolean failed, boolean saturated) {
+        var latency = (double) (endNanos - startNanos);
+        if (longLatency == 0) {
+            shortLatency = latency;
+            longLatency = latency;
+        }
+        shortLatency += (latency - shortLatency) * SHORT_ALPHA;
+        longLatency += (latency - longLatency) * LONG_ALPHA;
+        if (failed || shortLatency > longLatency * latencyTolerance) {
+            //requests started before the last back off ran against the old limit, they do not count again
+            if (startNanos > lastBackoff) {
+                estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+                lastBackoff = endNanos;
+            }
+        } else if (saturated) {
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + 1 / estimatedLimit);
+        }
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,49 @@
+package com.reactive.spring.controller;
+
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.domain.MovieInfoValidators;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+
+/**
+ * Entity tags for MovieInfo responses.
+ * A document is tagged strongly by its version, which every write bumps, and its lastModified millis,
+ * so a document replaced, re-created or re-imported at version 0 does not inherit the old tag. A listing is tagged weakly by
+ * how many documents match and the newest lastModified among them: an insert or update moves the
+ * timestamp and a delete moves the count.
+ */
+final class MovieInfoETags {
+
+    private MovieInfoETags() {
+    }
+
+    static String of(MovieInfo movieInfo) {
+        if (movieInfo.getVersion() == null) {
+            return null;
+        }
+        var lastModified = movieInfo.getLastModified() == null ? 0 : movieInfo.getLastModified().toEpochMilli();
+        return "\"" + movieInfo.getVersion() + "-" + lastModified + "\"";
+    }
+
+    static String of(MovieInfoValidators validators) {
+        var lastModified = validators.lastModified() == null ? 0 : validators.lastModified().toEpochMilli();
+        return "W/\"" + validators.count() + "-" + lastModified + "\"";
+    }
+
+    //documents written before lastModified existed have none, anything before the epoch is ignored by checkNotModified
+    static Instant lastModified(Instant lastModified) {
+        return lastModified == null ? Instant.MIN : lastModified;
+    }
+
+    static <T> ResponseEntity<T> ok(T body, String eTag, Instant lastModified) {
+        var builder = ResponseEntity.ok();
+        if (eTag != null) {
+            builder.eTag(eTag);
+        }
+        if (lastModified != null) {
+            builder.lastModified(lastModified);
+        }
+        return builder.body(body);
+    }
+}
@@ -0,0 +1,98 @@
+package com.reactive.spring.controller;
+
+import com.reactive.spring.config.MovieInfoConcurrencyProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Admits MovieInfo requests up to an adaptive concurrency limit and answers the rest with 503 and Retry-After,
+ * so a slow mongo fails the excess fast instead of queueing everyone behind the connection pool.
+ * Reads and writes have separate limits, a burst of writes does not starve lookups. Both are sampled when
+ * the request completes.
+ * Full listings and bulk uploads take seconds or minutes by size, not because mongo is queueing : they draw
+ * from a separate fixed stream budget and never hold a read or write permit nor move those limits.
+ * The change feed is not limited, its streams stay open by design.
+ */
+public class MovieInfoLoadSheddingFilter implements WebFilter, Ordered {
+
+    private static final String MOVIE_INFO_PATH = "/v1/movieinfos";
+
+    private static final String CHANGES_PATH = MOVIE_INFO_PATH + "/changes";
+
+    private final MovieInfoConcurrencyLimiter readLimiter;
+
+    private final MovieInfoConcurrencyLimiter writeLimiter;
+
+    private final MovieInfoConcurrencyLimiter streamLimiter;
+
+    private final String retryAfter;
+
+    public MovieInfoLoadSheddingFilter(MovieInfoConcurrencyProperties properties, MeterRegistry meterRegistry) {
+        this.readLimiter = new MovieInfoConcurrencyLimiter("read", properties, meterRegistry);
+        this.writeLimiter = new MovieInfoConcurrencyLimiter("write", properties, meterRegistry);
+        this.streamLimiter = new MovieInfoConcurrencyLimiter("stream", properties, meterRegistry);
+        //Retry-After takes whole seconds
+        this.retryAfter = String.valueOf(Math.max(1, (properties.getRetryAfter().toMillis() + 999) / 1000));
+    }
+
+    @Override
+    public int getOrder() {
+        //before anything that decodes or reads the request, shedding has to be cheap
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var request = exchange.getRequest();
+        var path = request.getPath().pathWithinApplication().value();
+        if (!path.startsWith(MOVIE_INFO_PATH) || path.startsWith(CHANGES_PATH)) {
+            return chain.filter(exchange);
+        }
+        var limiter = isStream(request, path)
+                ? streamLimiter
+                : isRead(request.getMethod(), path) ? readLimiter : writeLimiter;
+        if (!limiter.tryAcquire()) {
+            var response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+            return response.setComplete();
+        }
+        var start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    //cancelled requests say nothing about latency, nor does anything on the fixed stream budget
+                    if (signal == SignalType.CANCEL || limiter == streamLimiter) {
+                        limiter.releaseIgnored();
+                        return;
+                    }
+                    var status = exchange.getResponse().getStatusCode();
+                    var failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+                    limiter.release(start, System.nanoTime(), failed);
+                });
+    }
+
+    //a GET of the whole listing streams for as long as the catalog takes, a page (limit) is bounded.
+    //HEAD only reads the listing validators
+    private static boolean isStream(ServerHttpRequest request, String path) {
+        if (HttpMethod.POST.equals(request.getMethod())) {
+            return path.equals(MOVIE_INFO_PATH + "/bulk");
+        }
+        return HttpMethod.GET.equals(request.getMethod()) && path.equals(MOVIE_INFO_PATH)
+                && !request.getQueryParams().containsKey("limit");
+    }
+
+    //the id batch lookup is a POST but only reads
+    private static boolean isRead(HttpMethod method, String path) {
+        return HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method)
+                || (HttpMethod.POST.equals(method) && path.equals(MOVIE_INFO_PATH + "/batch"));
+    }
+}
@@ -0,0 +1,38 @@
+package com.reactive.spring.controller;
+
+import com.reactive.spring.domain.MovieInfoCastCount;
+import com.reactive.spring.domain.MovieInfoMonthCount;
+import com.reactive.spring.domain.MovieInfoYearCount;
+import com.reactive.spring.services.MovieInfoStatsServices;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/v1/movieinfos/stats")
+@Slf4j
+public class MovieInfoStatsController {
+
+    @Autowired
+    private MovieInfoStatsServices movieInfoStatsServices;
+
+    @GetMapping(value = "/years", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<MovieInfoYearCount> countByYear(){
+        return movieInfoStatsServices.countByYear();
+    }
+
+    @GetMapping(value = "/release-months", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<MovieInfoMonthCount> countByReleaseMonth(@RequestParam(value = "year",required = false) Integer year){
+        return movieInfoStatsServices.countByReleaseMonth(year);
+    }
+
+    @GetMapping(value = "/cast", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<MovieInfoCastCount> topCast(@RequestParam(value = "limit",required = false) Integer limit){
+        return movieInfoStatsServices.topCast(limit);
+    }
+}
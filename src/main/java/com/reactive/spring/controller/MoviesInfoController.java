@@ -1,16 +1,35 @@
 package com.reactive.spring.controller;
 
+import com.reactive.spring.config.MovieInfoCodecConfig;
+import com.reactive.spring.domain.BulkBatchResult;
 import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.domain.MovieInfoBatchItem;
+import com.reactive.spring.domain.MovieInfoChangeEvent;
+import com.reactive.spring.domain.MovieInfoPage;
+import com.reactive.spring.domain.MovieInfoPatch;
+import com.reactive.spring.domain.MovieInfoProjection;
+import com.reactive.spring.domain.MovieInfoSuggestion;
+import com.reactive.spring.exceptionHandler.InvalidRequestException;
+import com.reactive.spring.services.MovieInfoReadPolicy;
 import com.reactive.spring.services.MovieInfoServices;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @RestController
 @RequestMapping("/v1")
 @Slf4j
@@ -19,24 +38,146 @@ public class MoviesInfoController {
     @Autowired
     public MovieInfoServices movieInfoServices;
 
-    @GetMapping("/movieinfos")
-    public Flux<MovieInfo> getAllMovieInfos(@RequestParam(value = "year",required = false) Integer year){
-        log.info("Year is : {} ",year);
+    //ndjson, event-stream and stream+smile are written and flushed one MovieInfo at a time as the cursor produces them
+    //plain smile and cbor are collected into one array, never offered on an unbounded listing
+    @GetMapping(value = "/movieinfos",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE,
+                    MovieInfoCodecConfig.APPLICATION_STREAM_SMILE_VALUE})
+    public Mono<ResponseEntity<Flux<MovieInfo>>> getAllMovieInfos(@RequestParam(value = "year",required = false) Integer year,
+                                                                  @RequestParam(value = "cast",required = false) String cast,
+                                                                  @RequestParam(value = "yearFrom",required = false) Integer yearFrom,
+                                                                  @RequestParam(value = "yearTo",required = false) Integer yearTo,
+                                                                  @RequestParam(value = "releaseDateFrom",required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releaseDateFrom,
+                                                                  @RequestParam(value = "releaseDateTo",required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releaseDateTo,
+                                                                  ServerWebExchange exchange){
+        log.debug("Year is : {} ",year);
+        if(yearFrom!=null || yearTo!=null || releaseDateFrom!=null || releaseDateTo!=null){
+            if(year!=null || cast!=null){
+                return Mono.error(new InvalidRequestException("movieInfo year and cast cannot be combined with a range"));
+            }
+            //ranges go straight to mongo, no validators
+            return Mono.just(ResponseEntity.ok(movieInfoServices.getMovieInfoByRange(yearFrom,yearTo,releaseDateFrom,releaseDateTo)));
+        }
+        var head = HttpMethod.HEAD.equals(exchange.getRequest().getMethod());
+        //every GET and HEAD carries a weak etag from count and newest lastModified (an estimated count and one
+        //indexed document for the full listing, shared by concurrent pollers), so plain polling clients get 304s.
+        //a matching If-None-Match gets a 304 and the cursor is never opened, HEAD sends the validators without the listing.
+        //validators and listing both come from the primary, a lagging secondary cannot pair an old body with a newer etag
+        return movieInfoServices.getMovieInfoListValidators(year,cast)
+                .map(validators -> MovieInfoETags.ok(head ? Flux.<MovieInfo>empty()
+                                : Flux.defer(() -> findMovieInfos(year,cast)).contextWrite(MovieInfoReadPolicy.primaryReads()),
+                        MovieInfoETags.of(validators), validators.lastModified()));
+    }
+
+    private Flux<MovieInfo> findMovieInfos(Integer year, String cast){
+        if(cast!=null){
+            return movieInfoServices.getMovieInfoByCast(cast);
+        }
         if(year!=null){
             return movieInfoServices.getMovieInfoByYear(year);
         }
-        return movieInfoServices.getAllMovieInfos().log();
+        return movieInfoServices.getAllMovieInfos();
+    }
+
+    @GetMapping(value = "/movieinfos", params = "fields",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE,
+                    MovieInfoCodecConfig.APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<MovieInfoProjection> getMovieInfoProjections(@RequestParam(value = "year",required = false) Integer year,
+                                                             @RequestParam(value = "cast",required = false) String cast,
+                                                             @RequestParam("fields") String fields,
+                                                             @RequestParam MultiValueMap<String,String> params){
+        if(params.containsKey("limit")){
+            return Flux.error(new InvalidRequestException("movieInfo fields cannot be combined with limit"));
+        }
+        if(hasRange(params)){
+            return Flux.error(new InvalidRequestException("movieInfo fields cannot be combined with a range"));
+        }
+        return movieInfoServices.getMovieInfoProjections(year,cast,fields);
+    }
+
+    //fields wins the mapping, the projection handler rejects the combination instead of it being ambiguous
+    @GetMapping(value = "/movieinfos", params = {"limit", "!fields"})
+    public Mono<MovieInfoPage> getMovieInfoPage(@RequestParam(value = "year",required = false) Integer year,
+                                                @RequestParam("limit") int limit,
+                                                @RequestParam(value = "after",required = false) String after,
+                                                @RequestParam MultiValueMap<String,String> params){
+        //pages are keyset pages over movieInfoId, they only filter by year
+        if(params.containsKey("cast")){
+            return Mono.error(new InvalidRequestException("movieInfo limit cannot be combined with cast"));
+        }
+        if(hasRange(params)){
+            return Mono.error(new InvalidRequestException("movieInfo limit cannot be combined with a range"));
+        }
+        return movieInfoServices.getMovieInfoPage(year,limit,after);
+    }
+
+    private static boolean hasRange(MultiValueMap<String,String> params){
+        return params.containsKey("yearFrom") || params.containsKey("yearTo")
+                || params.containsKey("releaseDateFrom") || params.containsKey("releaseDateTo");
+    }
+
+    @GetMapping(value = "/movieinfos/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<MovieInfoChangeEvent>> getMovieInfoChanges(@RequestParam(value = "year",required = false) Integer year){
+        //heartbeats go out as sse comments, clients never see them as events
+        return movieInfoServices.getMovieInfoChanges(year)
+                .map(event -> MovieInfoChangeEvent.HEARTBEAT.equals(event.type())
+                        ? ServerSentEvent.<MovieInfoChangeEvent>builder().comment(event.type()).build()
+                        : ServerSentEvent.builder(event).event(event.type()).build());
+    }
+
+    @GetMapping("/movieinfos/suggest")
+    public Flux<MovieInfoSuggestion> suggestMovieInfos(@RequestParam("prefix") String prefix,
+                                                       @RequestParam(value = "limit",required = false) Integer limit){
+        return movieInfoServices.suggestMovieInfos(prefix,limit);
+    }
+
+    @PostMapping(value = "/movieinfos/batch",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                    MovieInfoCodecConfig.APPLICATION_SMILE_VALUE, MovieInfoCodecConfig.APPLICATION_CBOR_VALUE})
+    public Flux<MovieInfoBatchItem> getMovieInfoBatch(@RequestBody List<String> ids){
+        return movieInfoServices.getMovieInfoBatch(ids);
+    }
+
+    @GetMapping(value = "/movieinfos/{id}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MovieInfoCodecConfig.APPLICATION_SMILE_VALUE, MovieInfoCodecConfig.APPLICATION_CBOR_VALUE})
+    public Mono<ResponseEntity<MovieInfo>> getMovieInfoById(@PathVariable String id, ServerWebExchange exchange){
+        var headers = exchange.getRequest().getHeaders();
+        if(headers.getIfNoneMatch().isEmpty() && headers.getIfModifiedSince() < 0){
+            return findMovieInfoById(id);
+        }
+        //conditional request : compare against version / lastModified first, the full document is read only when it changed
+        return movieInfoServices.getMovieInfoValidators(id)
+                .flatMap(validators -> exchange.checkNotModified(MovieInfoETags.of(validators),
+                                MovieInfoETags.lastModified(validators.getLastModified()))
+                        ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).<MovieInfo>build())
+                        : findMovieInfoById(id))
+                .switchIfEmpty(Mono.defer(() -> findMovieInfoById(id)));
+    }
+
+    private Mono<ResponseEntity<MovieInfo>> findMovieInfoById(String id){
+        return movieInfoServices.getMovieInfoById(id)
+                .map(movieInfo -> MovieInfoETags.ok(movieInfo,
+                        MovieInfoETags.of(movieInfo), movieInfo.getLastModified()));
     }
 
-    @GetMapping("/movieinfos/{id}")
-    public Mono<MovieInfo> getMovieInfoById(@PathVariable String id){
-        return movieInfoServices.getMovieInfoById(id).log();
+    @GetMapping(value = "/movieinfos/{id}", params = "fields",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MovieInfoCodecConfig.APPLICATION_SMILE_VALUE, MovieInfoCodecConfig.APPLICATION_CBOR_VALUE})
+    public Mono<MovieInfoProjection> getMovieInfoProjectionById(@PathVariable String id,
+                                                                @RequestParam("fields") String fields){
+        return movieInfoServices.getMovieInfoProjectionById(id,fields);
     }
 
     @PostMapping("/movieinfos")
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<MovieInfo> addMovieInfo(@RequestBody @Valid MovieInfo movieInfo){
-        return movieInfoServices.addMovieInfo(movieInfo).log();
+        return movieInfoServices.addMovieInfo(movieInfo);
+    }
+
+    @PostMapping(value = "/movieinfos/bulk",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE, MovieInfoCodecConfig.APPLICATION_SMILE_VALUE},
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE, MovieInfoCodecConfig.APPLICATION_SMILE_VALUE})
+    public Flux<BulkBatchResult> bulkAddMovieInfos(@RequestBody Flux<MovieInfo> movieInfos){
+        return movieInfoServices.bulkAddMovieInfos(movieInfos);
     }
 
     @PutMapping ("/movieinfos/{id}")
@@ -45,13 +186,19 @@ public class MoviesInfoController {
                 .map(movieInfo -> {
                    return  ResponseEntity.ok().body(movieInfo);
                 })
-                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()))
-                .log();
+                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    @PatchMapping("/movieinfos/{id}")
+    public Mono<ResponseEntity<MovieInfo>> patchMovieInfo(@RequestBody @Valid MovieInfoPatch movieInfoPatch, @PathVariable String id){
+        return movieInfoServices.patchMovieInfo(movieInfoPatch,id)
+                .map(movieInfo -> ResponseEntity.ok().body(movieInfo))
+                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
     }
 
     @DeleteMapping("/movieinfos/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public Mono<Void> deleteMovieInfo(@PathVariable String id){
-        return movieInfoServices.deleteMovieInfo(id).log();
+        return movieInfoServices.deleteMovieInfo(id);
     }
 }
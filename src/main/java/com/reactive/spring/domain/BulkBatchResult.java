@@ -0,0 +1,10 @@
+package com.reactive.spring.domain;
+
+import java.util.List;
+
+public record BulkBatchResult(long batch,
+                              int received,
+                              int inserted,
+                              int failed,
+                              List<String> errors) {
+}
@@ -1,21 +1,34 @@
 package com.reactive.spring.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
-import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 @Document
+//year + _id serves findByYear and the keyset page on ?year= without a sort stage
+@CompoundIndex(name = "year_id", def = "{'year': 1, '_id': 1}")
+@CompoundIndex(name = "year_name", def = "{'year': 1, 'name': 1}")
+//release_date ranges, optionally narrowed by year, in release order
+@CompoundIndex(name = "release_date_year", def = "{'release_date': 1, 'year': 1}")
+//newest lastModified of a year for the listing validators
+@CompoundIndex(name = "year_last_modified", def = "{'year': 1, 'lastModified': -1}")
+//?cast= lookups and, with lastModified, their listing validators
+@CompoundIndex(name = "cast_keys_last_modified", def = "{'castKeys': 1, 'lastModified': -1}")
 public class MovieInfo {
 
     @Id
@@ -29,4 +42,32 @@ public class MovieInfo {
     private List<@NotBlank(message = "movieInfo.cast must be present ") String> cast;
     private LocalDate release_date;
 
+    //bumped by every update, clients may send it back to get optimistic locking
+    private Long version;
+
+    //set by every write, served as Last-Modified
+    @Indexed(name = "last_modified")
+    private Instant lastModified;
+
+    //cast names as the cast index matches them, derived from cast on every write and never sent to clients
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private List<String> castKeys;
+
+    public MovieInfo(String movieInfoId, String name, Integer year, List<String> cast, LocalDate release_date) {
+        this(movieInfoId, name, year, cast, release_date, null, null);
+    }
+
+    public MovieInfo(String movieInfoId, String name, Integer year, List<String> cast, LocalDate release_date,
+                     Long version, Instant lastModified) {
+        this.movieInfoId = movieInfoId;
+        this.name = name;
+        this.year = year;
+        this.cast = cast;
+        this.release_date = release_date;
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+
 }
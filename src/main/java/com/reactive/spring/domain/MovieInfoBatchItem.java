@@ -0,0 +1,15 @@
+package com.reactive.spring.domain;
+
+//one entry per requested id, missing ids come back with found=false instead of failing the batch
+public record MovieInfoBatchItem(String movieInfoId,
+                                 boolean found,
+                                 MovieInfo movieInfo) {
+
+    public static MovieInfoBatchItem found(MovieInfo movieInfo) {
+        return new MovieInfoBatchItem(movieInfo.getMovieInfoId(), true, movieInfo);
+    }
+
+    public static MovieInfoBatchItem missing(String movieInfoId) {
+        return new MovieInfoBatchItem(movieInfoId, false, null);
+    }
+}
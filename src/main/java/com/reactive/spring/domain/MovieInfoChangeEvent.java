@@ -0,0 +1,15 @@
+package com.reactive.spring.domain;
+
+//movieInfo is the document after the change, null for deletes
+public record MovieInfoChangeEvent(String type,
+                                   String movieInfoId,
+                                   MovieInfo movieInfo) {
+
+    public static final String SAVED = "saved";
+
+    public static final String DELETED = "deleted";
+
+    public static final String HEARTBEAT = "heartbeat";
+
+    public static final MovieInfoChangeEvent HEARTBEAT_EVENT = new MovieInfoChangeEvent(HEARTBEAT, null, null);
+}
@@ -0,0 +1,7 @@
+package com.reactive.spring.domain;
+
+import java.util.List;
+
+public record MovieInfoPage(List<MovieInfo> items,
+                            String next) {
+}
@@ -0,0 +1,18 @@
+package com.reactive.spring.domain;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Partial MovieInfo update, only the non null fields are written.
+ */
+public record MovieInfoPatch(@Pattern(regexp = ".*\\S.*", message = "movieInfo.name must be present") String name,
+                             @Positive(message = "movieInfo.year must be positive number") Integer year,
+                             List<@NotBlank(message = "movieInfo.cast must be present ") String> cast,
+                             LocalDate release_date,
+                             Long version) {
+}
@@ -0,0 +1,30 @@
+package com.reactive.spring.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+//response for ?fields=, fields that were not asked for stay null and are not written at all
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MovieInfoProjection(String movieInfoId,
+                                  String name,
+                                  Integer year,
+                                  List<String> cast,
+                                  LocalDate release_date,
+                                  Long version,
+                                  Instant lastModified) {
+
+    //movieInfoId is always returned, a client cannot follow up on a document without it
+    public static MovieInfoProjection of(MovieInfo movieInfo, Set<String> fields) {
+        return new MovieInfoProjection(movieInfo.getMovieInfoId(),
+                fields.contains("name") ? movieInfo.getName() : null,
+                fields.contains("year") ? movieInfo.getYear() : null,
+                fields.contains("cast") ? movieInfo.getCast() : null,
+                fields.contains("release_date") ? movieInfo.getRelease_date() : null,
+                fields.contains("version") ? movieInfo.getVersion() : null,
+                fields.contains("lastModified") ? movieInfo.getLastModified() : null);
+    }
+}
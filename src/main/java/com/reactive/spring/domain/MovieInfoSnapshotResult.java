@@ -0,0 +1,8 @@
+package com.reactive.spring.domain;
+
+public record MovieInfoSnapshotResult(String snapshot,
+                                      long documents,
+                                      long failed,
+                                      long bytes,
+                                      long millis) {
+}
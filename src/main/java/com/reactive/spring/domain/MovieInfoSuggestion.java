@@ -0,0 +1,5 @@
+package com.reactive.spring.domain;
+
+public record MovieInfoSuggestion(String movieInfoId,
+                                  String name) {
+}
@@ -0,0 +1,8 @@
+package com.reactive.spring.domain;
+
+import java.time.Instant;
+
+//cheap summary of a listing query, changes whenever a matching document is added, updated or removed
+public record MovieInfoValidators(long count,
+                                  Instant lastModified) {
+}
@@ -0,0 +1,5 @@
+package com.reactive.spring.domain;
+
+public record MovieInfoYearCount(Integer year,
+                                 long count) {
+}
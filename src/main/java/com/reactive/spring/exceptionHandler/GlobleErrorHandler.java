@@ -24,4 +24,22 @@ public class GlobleErrorHandler {
             log.error("Error is : {} "+error);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<String> handelInvalidRequest(InvalidRequestException ex){
+        log.error("Exception caught in handelInvalidRequest : {} ",ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<String> handelVersionConflict(VersionConflictException ex){
+        log.error("Exception caught in handelVersionConflict : {} ",ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(OperationTimeoutException.class)
+    public ResponseEntity<String> handelOperationTimeout(OperationTimeoutException ex){
+        log.error("Exception caught in handelOperationTimeout : {} ",ex.getMessage());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(ex.getMessage());
+    }
 }
@@ -0,0 +1,8 @@
+package com.reactive.spring.exceptionHandler;
+
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.reactive.spring.exceptionHandler;
+
+public class OperationTimeoutException extends RuntimeException {
+
+    public OperationTimeoutException(String message) {
+        super(message);
+    }
+}
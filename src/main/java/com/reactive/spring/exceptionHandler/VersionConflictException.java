@@ -0,0 +1,8 @@
+package com.reactive.spring.exceptionHandler;
+
+public class VersionConflictException extends RuntimeException {
+
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,284 @@
+package com.reactive.spring.index;
+
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.services.MovieInfoChangeListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index from normalized cast name to movieInfoId.
+ * Cast names and movieInfoIds are dictionary encoded to ints once, and each name keeps a
+ * sorted int[] posting list of document numbers, so the index costs a few bytes per
+ * (name, movie) pair instead of a String per pair.
+ */
+@Component
+@Slf4j
+public class CastIndex implements MovieInfoChangeListener {
+
+    private static final int[] NO_NAMES = new int[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    //name dictionary : normalized cast name <-> name number
+    private final Map<String, Integer> nameNumbers = new HashMap<>();
+    private String[] names = new String[256];
+    private int nameCount;
+
+    //document dictionary : movieInfoId <-> document number, numbers of deleted documents are reused
+    private final Map<String, Integer> documentNumbers = new HashMap<>();
+    private String[] movieInfoIds = new String[256];
+    private int[][] documentNames = new int[256][];
+    private int documentCount;
+    private int[] freeDocuments = new int[16];
+    private int freeCount;
+
+    //posting list per name number, sorted document numbers
+    private int[][] postings = new int[256][];
+    private int[] postingSizes = new int[256];
+
+    private volatile boolean loaded;
+
+    public static String normalize(String castName) {
+        if (castName == null) {
+            return "";
+        }
+        return castName.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return the distinct normalized names of a cast, what MovieInfo.castKeys stores so mongo matches like the index
+     */
+    public static List<String> normalize(List<String> cast) {
+        if (cast == null) {
+            return null;
+        }
+        return cast.stream()
+                .map(CastIndex::normalize)
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return movieInfoIds featuring the cast member, in document number order
+     */
+    public List<String> lookup(String castName) {
+        var name = normalize(castName);
+        lock.readLock().lock();
+        try {
+            var nameNumber = nameNumbers.get(name);
+            if (nameNumber == null) {
+                return List.of();
+            }
+            var posting = postings[nameNumber];
+            var size = postingSizes[nameNumber];
+            var result = new ArrayList<String>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(movieInfoIds[posting[i]]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onSaved(MovieInfo movieInfo) {
+        lock.writeLock().lock();
+        try {
+            var newNames = nameNumbers(movieInfo.getCast());
+            var document = documentNumbers.get(movieInfo.getMovieInfoId());
+            if (document == null) {
+                document = newDocument(movieInfo.getMovieInfoId());
+            }
+            var oldNames = documentNames[document];
+            //both arrays are sorted, walk them together to find what was added and removed
+            int i = 0, j = 0;
+            while (i < oldNames.length || j < newNames.length) {
+                if (j == newNames.length || (i < oldNames.length && oldNames[i] < newNames[j])) {
+                    removePosting(oldNames[i++], document);
+                } else if (i == oldNames.length || newNames[j] < oldNames[i]) {
+                    addPosting(newNames[j++], document);
+                } else {
+                    i++;
+                    j++;
+                }
+            }
+            documentNames[document] = newNames;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDeleted(String movieInfoId) {
+        lock.writeLock().lock();
+        try {
+            var document = documentNumbers.remove(movieInfoId);
+            if (document == null) {
+                return;
+            }
+            for (int name : documentNames[document]) {
+                removePosting(name, document);
+            }
+            documentNames[document] = null;
+            movieInfoIds[document] = null;
+            if (freeCount == freeDocuments.length) {
+                freeDocuments = Arrays.copyOf(freeDocuments, freeCount * 2);
+            }
+            freeDocuments[freeCount++] = document;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onLoaded() {
+        loaded = true;
+        log.info("Cast index loaded : {} ", stats());
+    }
+
+    @Override
+    public void onCleared() {
+        //lookups go back to mongo until the next load completes
+        loaded = false;
+        lock.writeLock().lock();
+        try {
+            nameNumbers.clear();
+            names = new String[256];
+            nameCount = 0;
+            documentNumbers.clear();
+            movieInfoIds = new String[256];
+            documentNames = new int[256][];
+            documentCount = 0;
+            freeDocuments = new int[16];
+            freeCount = 0;
+            postings = new int[256][];
+            postingSizes = new int[256];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public CastIndexStats stats() {
+        lock.readLock().lock();
+        try {
+            long postingEntries = 0;
+            long bytes = 0;
+            for (int i = 0; i < nameCount; i++) {
+                postingEntries += postingSizes[i];
+                //int[] header + slots, dictionary String (compact latin1) + map entry + boxed Integer
+                bytes += 16 + 4L * postings[i].length;
+                bytes += 40 + names[i].length() + 48 + 16;
+            }
+            for (int i = 0; i < documentCount; i++) {
+                if (movieInfoIds[i] != null) {
+                    bytes += 40 + movieInfoIds[i].length() + 48 + 16;
+                    bytes += 16 + 4L * documentNames[i].length;
+                }
+            }
+            //the dictionary and posting arrays themselves
+            bytes += 8L * (names.length + movieInfoIds.length + documentNames.length + postings.length)
+                    + 4L * (postingSizes.length + freeDocuments.length);
+            return new CastIndexStats(loaded, nameCount, documentNumbers.size(), postingEntries, bytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] nameNumbers(List<String> cast) {
+        if (cast == null || cast.isEmpty()) {
+            return NO_NAMES;
+        }
+        var numbers = new int[cast.size()];
+        int count = 0;
+        for (String castName : cast) {
+            var name = normalize(castName);
+            if (!name.isEmpty()) {
+                numbers[count++] = nameNumber(name);
+            }
+        }
+        //sorted and distinct, a cast listing the same name twice is indexed once
+        Arrays.sort(numbers, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || numbers[distinct - 1] != numbers[i]) {
+                numbers[distinct++] = numbers[i];
+            }
+        }
+        return distinct == numbers.length ? numbers : Arrays.copyOf(numbers, distinct);
+    }
+
+    private int nameNumber(String name) {
+        var number = nameNumbers.get(name);
+        if (number != null) {
+            return number;
+        }
+        if (nameCount == names.length) {
+            names = Arrays.copyOf(names, nameCount * 2);
+            postings = Arrays.copyOf(postings, nameCount * 2);
+            postingSizes = Arrays.copyOf(postingSizes, nameCount * 2);
+        }
+        names[nameCount] = name;
+        postings[nameCount] = new int[2];
+        nameNumbers.put(name, nameCount);
+        return nameCount++;
+    }
+
+    private int newDocument(String movieInfoId) {
+        int document;
+        if (freeCount > 0) {
+            document = freeDocuments[--freeCount];
+        } else {
+            if (documentCount == movieInfoIds.length) {
+                movieInfoIds = Arrays.copyOf(movieInfoIds, documentCount * 2);
+                documentNames = Arrays.copyOf(documentNames, documentCount * 2);
+            }
+            document = documentCount++;
+        }
+        movieInfoIds[document] = movieInfoId;
+        documentNames[document] = NO_NAMES;
+        documentNumbers.put(movieInfoId, document);
+        return document;
+    }
+
+    private void addPosting(int name, int document) {
+        var posting = postings[name];
+        var size = postingSizes[name];
+        var position = Arrays.binarySearch(posting, 0, size, document);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        if (size == posting.length) {
+            posting = Arrays.copyOf(posting, size + (size >> 1) + 1);
+            postings[name] = posting;
+        }
+        System.arraycopy(posting, position, posting, position + 1, size - position);
+        posting[position] = document;
+        postingSizes[name] = size + 1;
+    }
+
+    private void removePosting(int name, int document) {
+        var posting = postings[name];
+        var size = postingSizes[name];
+        var position = Arrays.binarySearch(posting, 0, size, document);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(posting, position + 1, posting, position, size - position - 1);
+        postingSizes[name] = size - 1;
+    }
+}
@@ -0,0 +1,8 @@
+package com.reactive.spring.index;
+
+public record CastIndexStats(boolean loaded,
+                             int castNames,
+                             int movies,
+                             long postings,
+                             long estimatedBytes) {
+}
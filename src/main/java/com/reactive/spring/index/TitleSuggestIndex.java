@@ -0,0 +1,310 @@
+package com.reactive.spring.index;
+
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.domain.MovieInfoSuggestion;
+import com.reactive.spring.services.MovieInfoChangeListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix trie over lower cased MovieInfo names used for search-as-you-type.
+ * Nodes live in parallel primitive arrays (label, parent, first child, next sibling),
+ * siblings are kept in label order so a depth first walk returns titles alphabetically,
+ * and every node counts the titles below it so empty subtrees are never visited.
+ * A lookup walks the prefix char by char and allocates nothing but the result list.
+ * Nodes left without titles below them are pruned when a title is renamed or deleted, the trie only
+ * ever holds the prefixes of current titles.
+ */
+@Component
+@Slf4j
+public class TitleSuggestIndex implements MovieInfoChangeListener {
+
+    private static final int NIL = -1;
+
+    private static final int ROOT = 0;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    //trie nodes
+    private char[] labels;
+    private int[] parents;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int[] entryHeads;
+    private int[] subtreeCounts;
+    private int nodeCount;
+    //nodes pruned when their last title went away, reused before the arrays grow
+    private int[] freeNodes;
+    private int freeNodeCount;
+
+    //one entry per movie, entries ending on the same node are chained through entryNext
+    private final Map<String, Integer> entryByMovieInfoId = new HashMap<>();
+    private String[] entryMovieInfoIds;
+    private String[] entryNames;
+    private int[] entryNodes;
+    private int[] entryNext;
+    private int entryCount;
+    private int[] freeEntries;
+    private int freeCount;
+
+    private volatile boolean loaded;
+
+    public TitleSuggestIndex() {
+        reset();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public List<MovieInfoSuggestion> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        var result = new ArrayList<MovieInfoSuggestion>(limit);
+        lock.readLock().lock();
+        try {
+            var node = ROOT;
+            for (int i = 0; i < prefix.length() && node != NIL; i++) {
+                node = child(node, Character.toLowerCase(prefix.charAt(i)));
+            }
+            if (node != NIL) {
+                collect(node, limit, result);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onSaved(MovieInfo movieInfo) {
+        var name = movieInfo.getName();
+        lock.writeLock().lock();
+        try {
+            var entry = entryByMovieInfoId.get(movieInfo.getMovieInfoId());
+            if (entry != null) {
+                if (entryNames[entry].equals(name)) {
+                    return;
+                }
+                removeEntry(entry);
+            }
+            if (name != null && !name.isEmpty()) {
+                addEntry(movieInfo.getMovieInfoId(), name);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDeleted(String movieInfoId) {
+        lock.writeLock().lock();
+        try {
+            var entry = entryByMovieInfoId.get(movieInfoId);
+            if (entry != null) {
+                removeEntry(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onLoaded() {
+        loaded = true;
+        log.info("Title suggest index loaded with {} titles and {} nodes", entryByMovieInfoId.size(), nodeCount());
+    }
+
+    @Override
+    public void onCleared() {
+        loaded = false;
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reset() {
+        labels = new char[1024];
+        parents = new int[1024];
+        firstChildren = new int[1024];
+        nextSiblings = new int[1024];
+        entryHeads = new int[1024];
+        subtreeCounts = new int[1024];
+        nodeCount = 0;
+        freeNodes = new int[16];
+        freeNodeCount = 0;
+        newNode(ROOT, '\0');
+        entryByMovieInfoId.clear();
+        entryMovieInfoIds = new String[256];
+        entryNames = new String[256];
+        entryNodes = new int[256];
+        entryNext = new int[256];
+        entryCount = 0;
+        freeEntries = new int[16];
+        freeCount = 0;
+    }
+
+    //live nodes, the root included
+    int nodeCount() {
+        lock.readLock().lock();
+        try {
+            return nodeCount - freeNodeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collect(int node, int limit, List<MovieInfoSuggestion> result) {
+        for (int entry = entryHeads[node]; entry != NIL && result.size() < limit; entry = entryNext[entry]) {
+            result.add(new MovieInfoSuggestion(entryMovieInfoIds[entry], entryNames[entry]));
+        }
+        for (int child = firstChildren[node]; child != NIL && result.size() < limit; child = nextSiblings[child]) {
+            if (subtreeCounts[child] > 0) {
+                collect(child, limit, result);
+            }
+        }
+    }
+
+    private int child(int node, char label) {
+        for (int child = firstChildren[node]; child != NIL; child = nextSiblings[child]) {
+            if (labels[child] == label) {
+                return child;
+            }
+            if (labels[child] > label) {
+                return NIL;
+            }
+        }
+        return NIL;
+    }
+
+    private void addEntry(String movieInfoId, String name) {
+        var node = ROOT;
+        for (int i = 0; i < name.length(); i++) {
+            node = childOrCreate(node, Character.toLowerCase(name.charAt(i)));
+        }
+        int entry;
+        if (freeCount > 0) {
+            entry = freeEntries[--freeCount];
+        } else {
+            if (entryCount == entryNodes.length) {
+                var capacity = entryCount * 2;
+                entryMovieInfoIds = Arrays.copyOf(entryMovieInfoIds, capacity);
+                entryNames = Arrays.copyOf(entryNames, capacity);
+                entryNodes = Arrays.copyOf(entryNodes, capacity);
+                entryNext = Arrays.copyOf(entryNext, capacity);
+            }
+            entry = entryCount++;
+        }
+        entryMovieInfoIds[entry] = movieInfoId;
+        entryNames[entry] = name;
+        entryNodes[entry] = node;
+        entryNext[entry] = entryHeads[node];
+        entryHeads[node] = entry;
+        entryByMovieInfoId.put(movieInfoId, entry);
+        for (int n = node; n != NIL; n = parents[n]) {
+            subtreeCounts[n]++;
+        }
+    }
+
+    private void removeEntry(int entry) {
+        var node = entryNodes[entry];
+        if (entryHeads[node] == entry) {
+            entryHeads[node] = entryNext[entry];
+        } else {
+            var previous = entryHeads[node];
+            while (entryNext[previous] != entry) {
+                previous = entryNext[previous];
+            }
+            entryNext[previous] = entryNext[entry];
+        }
+        for (int n = node; n != NIL; n = parents[n]) {
+            subtreeCounts[n]--;
+        }
+        prune(node);
+        entryByMovieInfoId.remove(entryMovieInfoIds[entry]);
+        entryMovieInfoIds[entry] = null;
+        entryNames[entry] = null;
+        if (freeCount == freeEntries.length) {
+            freeEntries = Arrays.copyOf(freeEntries, freeCount * 2);
+        }
+        freeEntries[freeCount++] = entry;
+    }
+
+    //a node without titles below it has no children left either, they were pruned when they emptied
+    private void prune(int node) {
+        for (int n = node; n != ROOT && subtreeCounts[n] == 0; ) {
+            var parent = parents[n];
+            if (firstChildren[parent] == n) {
+                firstChildren[parent] = nextSiblings[n];
+            } else {
+                var previous = firstChildren[parent];
+                while (nextSiblings[previous] != n) {
+                    previous = nextSiblings[previous];
+                }
+                nextSiblings[previous] = nextSiblings[n];
+            }
+            if (freeNodeCount == freeNodes.length) {
+                freeNodes = Arrays.copyOf(freeNodes, freeNodeCount * 2);
+            }
+            freeNodes[freeNodeCount++] = n;
+            n = parent;
+        }
+    }
+
+    private int childOrCreate(int node, char label) {
+        var previous = NIL;
+        var child = firstChildren[node];
+        while (child != NIL && labels[child] < label) {
+            previous = child;
+            child = nextSiblings[child];
+        }
+        if (child != NIL && labels[child] == label) {
+            return child;
+        }
+        var created = newNode(node, label);
+        nextSiblings[created] = child;
+        if (previous == NIL) {
+            firstChildren[node] = created;
+        } else {
+            nextSiblings[previous] = created;
+        }
+        return created;
+    }
+
+    private int newNode(int parent, char label) {
+        if (freeNodeCount > 0) {
+            return initNode(freeNodes[--freeNodeCount], parent, label);
+        }
+        if (nodeCount == labels.length) {
+            var capacity = nodeCount * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            entryHeads = Arrays.copyOf(entryHeads, capacity);
+            subtreeCounts = Arrays.copyOf(subtreeCounts, capacity);
+        }
+        return initNode(nodeCount++, parent, label);
+    }
+
+    private int initNode(int node, int parent, char label) {
+        labels[node] = label;
+        parents[node] = node == ROOT ? NIL : parent;
+        firstChildren[node] = NIL;
+        nextSiblings[node] = NIL;
+        entryHeads[node] = NIL;
+        subtreeCounts[node] = 0;
+        return node;
+    }
+}
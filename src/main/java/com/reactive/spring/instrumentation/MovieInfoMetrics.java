@@ -0,0 +1,97 @@
+package com.reactive.spring.instrumentation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per MovieInfoServices operation meters:
+ * movieinfo.operation (timer with percentile histogram, tagged by outcome),
+ * movieinfo.operation.inflight (gauge), movieinfo.operation.elements (summary, Flux operations only)
+ * and movieinfo.operation.coalesced (calls that joined an identical in-flight query).
+ * Meters are built once per operation and outcome, recording a call allocates nothing.
+ */
+@Component
+public class MovieInfoMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, OperationMeters> operations = new ConcurrentHashMap<>();
+
+    public MovieInfoMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    OperationMeters operation(String operation) {
+        return operations.computeIfAbsent(operation, OperationMeters::new);
+    }
+
+    public void coalesced(String operation) {
+        operation(operation).coalesced.increment();
+    }
+
+    final class OperationMeters {
+
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        final Timer success;
+
+        final Timer error;
+
+        final Timer cancelled;
+
+        final DistributionSummary elements;
+
+        final Counter coalesced;
+
+        private OperationMeters(String operation) {
+            Gauge.builder("movieinfo.operation.inflight", inFlight, AtomicInteger::get)
+                    .description("MovieInfoServices calls currently subscribed")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+            success = timer(operation, "success");
+            error = timer(operation, "error");
+            cancelled = timer(operation, "cancelled");
+            elements = DistributionSummary.builder("movieinfo.operation.elements")
+                    .description("Elements emitted by a MovieInfoServices Flux operation")
+                    .tag("operation", operation)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            coalesced = Counter.builder("movieinfo.operation.coalesced")
+                    .description("MovieInfoServices calls served by an identical query already in flight")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+        }
+
+        private Timer timer(String operation, String outcome) {
+            return Timer.builder("movieinfo.operation")
+                    .description("MovieInfoServices call latency, subscription to terminal signal")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        void record(SignalType signal, long durationNanos, long elementCount, boolean flux) {
+            inFlight.decrementAndGet();
+            var timer = switch (signal) {
+                case ON_ERROR -> error;
+                case CANCEL -> cancelled;
+                default -> success;
+            };
+            timer.record(durationNanos, TimeUnit.NANOSECONDS);
+            if (flux) {
+                elements.record(elementCount);
+            }
+        }
+    }
+}
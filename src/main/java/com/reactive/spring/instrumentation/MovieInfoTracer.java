@@ -0,0 +1,103 @@
+package com.reactive.spring.instrumentation;
+
+import com.reactive.spring.config.MovieInfoTracingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Replaces per-signal .log() with one structured line per traced call
+ * (operation, id, element count, duration, terminal signal).
+ * Whether a call is traced is decided once at subscription, from the operation's sample rate;
+ * calls slower than the slow threshold are always traced. Every call, traced or not, is
+ * recorded in MovieInfoMetrics. Per element the only work is a counter.
+ */
+@Component
+@Slf4j
+public class MovieInfoTracer {
+
+    private final MovieInfoTracingProperties properties;
+
+    private final MovieInfoMetrics movieInfoMetrics;
+
+    private final long slowThresholdNanos;
+
+    public MovieInfoTracer(MovieInfoTracingProperties properties, MovieInfoMetrics movieInfoMetrics) {
+        this.properties = properties;
+        this.movieInfoMetrics = movieInfoMetrics;
+        this.slowThresholdNanos = properties.getSlowThreshold().toNanos();
+    }
+
+    public <T> Flux<T> trace(String operation, Object id, Flux<T> source) {
+        return Flux.defer(() -> {
+            var trace = new Trace(operation, id, true);
+            return source
+                    .doOnNext(element -> trace.elements++)
+                    .doFinally(trace::finish);
+        });
+    }
+
+    public <T> Mono<T> trace(String operation, Object id, Mono<T> source) {
+        return Mono.defer(() -> {
+            var trace = new Trace(operation, id, false);
+            return source
+                    .doOnNext(element -> trace.elements++)
+                    .doFinally(trace::finish);
+        });
+    }
+
+    private boolean sampled(String operation) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        var rate = properties.getSampleRates().getOrDefault(operation, properties.getDefaultSampleRate());
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private final class Trace {
+
+        private final String operation;
+
+        private final Object id;
+
+        private final boolean flux;
+
+        private final boolean sampled;
+
+        private final MovieInfoMetrics.OperationMeters meters;
+
+        private final long start = System.nanoTime();
+
+        //signals are serialized, no need for an atomic
+        private long elements;
+
+        private Trace(String operation, Object id, boolean flux) {
+            this.operation = operation;
+            this.id = id;
+            this.flux = flux;
+            this.sampled = sampled(operation);
+            this.meters = movieInfoMetrics.operation(operation);
+            meters.inFlight.incrementAndGet();
+        }
+
+        private void finish(SignalType signal) {
+            var duration = System.nanoTime() - start;
+            meters.record(signal, duration, elements, flux);
+            var slow = properties.isEnabled() && duration >= slowThresholdNanos;
+            if (!sampled && !slow) {
+                return;
+            }
+            (slow ? log.atWarn() : log.atInfo())
+                    .addKeyValue("operation", operation)
+                    .addKeyValue("id", id)
+                    .addKeyValue("elements", elements)
+                    .addKeyValue("durationMs", duration / 1_000_000.0)
+                    .addKeyValue("signal", signal)
+                    .log(slow ? "slow movieinfo call" : "movieinfo call");
+        }
+    }
+}
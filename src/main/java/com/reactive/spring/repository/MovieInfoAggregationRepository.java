@@ -0,0 +1,93 @@
+package com.reactive.spring.repository;
+
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.domain.MovieInfoCastCount;
+import com.reactive.spring.domain.MovieInfoMonthCount;
+import com.reactive.spring.domain.MovieInfoYearCount;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+
+/**
+ * Statistics computed by mongo aggregation pipelines, only the grouped rows cross the wire.
+ */
+@Repository
+public class MovieInfoAggregationRepository {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public Flux<MovieInfoYearCount> countByYear() {
+        //sorting on year and keeping only year lets mongo answer from the year_id index without reading documents
+        var aggregation = newAggregation(MovieInfo.class,
+                sort(Sort.Direction.ASC, "year"),
+                project("year").andExclude("_id"),
+                group("year").count().as("count"),
+                project("count").and("year").previousOperation(),
+                sort(Sort.Direction.ASC, "year"));
+        return reactiveMongoTemplate.aggregate(aggregation, MovieInfoYearCount.class);
+    }
+
+    /**
+     * @param year optional year filter, null for the whole catalog
+     */
+    public Flux<MovieInfoMonthCount> countByReleaseMonth(Integer year) {
+        return reactiveMongoTemplate.aggregate(releaseMonthAggregation(year, ZoneId.systemDefault()), MovieInfoMonthCount.class);
+    }
+
+    //release_date is stored as midnight in the JVM zone, read in UTC a date on the 1st east of UTC falls in the previous month
+    static TypedAggregation<MovieInfo> releaseMonthAggregation(Integer year, ZoneId zone) {
+        var operations = new ArrayList<AggregationOperation>();
+        if (year != null) {
+            operations.add(match(Criteria.where("year").is(year)));
+        }
+        operations.add(match(Criteria.where("release_date").ne(null)));
+        operations.add(project().and(DateOperators.DateToString.dateOf("release_date").toString("%Y-%m")
+                .withTimezone(DateOperators.Timezone.valueOf(zone.getId()))).as("month"));
+        operations.add(group("month").count().as("count"));
+        operations.add(project("count").and("month").previousOperation());
+        operations.add(sort(Sort.Direction.ASC, "month"));
+        return newAggregation(MovieInfo.class, operations);
+    }
+
+    public Flux<MovieInfoCastCount> topCast(int limit) {
+        return reactiveMongoTemplate.aggregate(topCastAggregation(limit), MovieInfoCastCount.class);
+    }
+
+    //tallied on the normalized castKeys, "Christian Bale" and "christian bale " are one actor counted once per movie.
+    //the name shown is a raw spelling of the key, matched on case and surrounding whitespace, else the key itself
+    static TypedAggregation<MovieInfo> topCastAggregation(int limit) {
+        AggregationExpression spelling = context -> new Document("$arrayElemAt", List.of(
+                new Document("$filter", new Document("input", "$cast")
+                        .append("as", "name")
+                        .append("cond", new Document("$eq", List.of(
+                                new Document("$toLower", new Document("$trim", new Document("input", "$$name"))),
+                                "$castKeys")))),
+                0));
+        //sort followed by limit is run by mongo as a top-k, the full tally is never sorted
+        return newAggregation(MovieInfo.class,
+                project("cast", "castKeys").andExclude("_id"),
+                unwind("castKeys"),
+                project("castKeys").and(spelling).as("name"),
+                group("castKeys").count().as("count")
+                        .first(ConditionalOperators.ifNull("name").thenValueOf("castKeys")).as("cast"),
+                sort(Sort.by(Sort.Direction.DESC, "count").and(Sort.by(Sort.Direction.ASC, "_id"))),
+                limit(limit),
+                project("cast", "count").andExclude("_id"));
+    }
+}
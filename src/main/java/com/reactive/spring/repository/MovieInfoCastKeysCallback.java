@@ -0,0 +1,22 @@
+package com.reactive.spring.repository;
+
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.index.CastIndex;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Derives MovieInfo.castKeys from cast whenever a whole document is written : save, insert, bulk insert and bulk replace.
+ * Updates that set cast on their own (update, patch) set castKeys next to it.
+ */
+@Component
+public class MovieInfoCastKeysCallback implements ReactiveBeforeConvertCallback<MovieInfo> {
+
+    @Override
+    public Publisher<MovieInfo> onBeforeConvert(MovieInfo movieInfo, String collection) {
+        movieInfo.setCastKeys(CastIndex.normalize(movieInfo.getCast()));
+        return Mono.just(movieInfo);
+    }
+}
@@ -0,0 +1,65 @@
+package com.reactive.spring.repository;
+
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.index.CastIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Creates the indexes declared on MovieInfo (@Indexed / @CompoundIndex) once the application is up.
+ * ensureIndex is a no-op for indexes that already exist, so this is safe on every start.
+ * Documents written before castKeys existed get theirs filled in, ?cast= in mongo would miss them otherwise.
+ */
+@Component
+@ConditionalOnProperty(prefix = "movieinfo.indexes", name = "ensure-on-startup", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class MovieInfoIndexInitializer {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ensureIndexes()
+                .then(backfillCastKeys())
+                .subscribe(
+                        count -> {
+                            if (count > 0) {
+                                log.info("MovieInfo castKeys filled in for {} documents", count);
+                            }
+                        },
+                        ex -> log.error("Creating MovieInfo indexes failed : {} ", ex.getMessage(), ex));
+    }
+
+    public Mono<Void> ensureIndexes() {
+        var resolver = new MongoPersistentEntityIndexResolver(reactiveMongoTemplate.getConverter().getMappingContext());
+        var indexOperations = reactiveMongoTemplate.indexOps(MovieInfo.class);
+        return Flux.fromIterable(resolver.resolveIndexFor(MovieInfo.class))
+                .concatMap(indexOperations::ensureIndex)
+                .doOnNext(indexName -> log.info("MovieInfo index ensured : {} ", indexName))
+                .then();
+    }
+
+    public Mono<Long> backfillCastKeys() {
+        var missing = Query.query(Criteria.where("castKeys").exists(false).and("cast").exists(true));
+        missing.fields().include("cast");
+        return reactiveMongoTemplate.find(missing, MovieInfo.class)
+                //a write in between sets castKeys itself and is left alone
+                .flatMap(movieInfo -> reactiveMongoTemplate.updateFirst(
+                        Query.query(Criteria.where("movieInfoId").is(movieInfo.getMovieInfoId()).and("castKeys").exists(false)),
+                        new Update().set("castKeys", CastIndex.normalize(movieInfo.getCast())),
+                        MovieInfo.class), 8)
+                .reduce(0L, (count, result) -> count + result.getModifiedCount());
+    }
+}
@@ -1,10 +1,17 @@
 package com.reactive.spring.repository;
 
 import com.reactive.spring.domain.MovieInfo;
+import org.springframework.data.domain.Range;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
 
-public interface MovieInfoRepository extends ReactiveMongoRepository<MovieInfo,String> {
+public interface MovieInfoRepository extends ReactiveMongoRepository<MovieInfo,String>, MovieInfoRepositoryCustom {
 
     Flux<MovieInfo> findByYear(Integer year);
+
+    //castKey as CastIndex.normalize gives it, matches the cast index rather than the cast as written
+    Flux<MovieInfo> findByCastKeys(String castKey);
+
+    //sorted like the year_name index, documents stream in index order without a sort stage
+    Flux<MovieInfo> findByYearBetweenOrderByYearAscNameAsc(Range<Integer> years);
 }
@@ -0,0 +1,67 @@
+package com.reactive.spring.repository;
+
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.domain.MovieInfoValidators;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
+
+public interface MovieInfoRepositoryCustom {
+
+    /**
+     * Keyset page ordered by movieInfoId, only documents after the given id are read
+     * so every page costs the same as the first one.
+     *
+     * @param year    optional year filter, null for the whole catalog
+     * @param afterId last id of the previous page, null for the first page
+     * @param limit   maximum number of documents returned
+     */
+    Flux<MovieInfo> findPage(Integer year, String afterId, int limit);
+
+    /**
+     * Same filters as the listing endpoint (cast wins over year), but mongo only returns the
+     * given properties so the rest are neither sent nor decoded.
+     *
+     * @param fields MovieInfo property names to return, null for the whole document
+     */
+    Flux<MovieInfo> findProjected(Integer year, String cast, Set<String> fields);
+
+    /**
+     * @param fields MovieInfo property names to return, null for the whole document
+     */
+    Mono<MovieInfo> findProjectedById(String id, Set<String> fields);
+
+    /**
+     * Documents released within releaseDates, oldest first. release_date cannot be used in a derived
+     * query (the underscore reads as a property path), hence the criteria query. The sort follows the
+     * release_date_year index, which also answers the optional year range, so nothing is sorted in memory.
+     *
+     * @param years optional year range, null for any year
+     */
+    Flux<MovieInfo> findByReleaseDates(Range<LocalDate> releaseDates, Range<Integer> years);
+
+    /**
+     * Count and newest lastModified of the documents the listing endpoint would return
+     * (cast wins over year), each answered from an index without streaming the documents.
+     */
+    Mono<MovieInfoValidators> findValidators(Integer year, String cast);
+
+    /**
+     * Count and newest lastModified of the given documents, for listings answered from an in-memory id set.
+     * Only lastModified is read, ids no longer in the collection are not counted.
+     */
+    Mono<MovieInfoValidators> findValidatorsByIds(Collection<String> ids);
+
+    /**
+     * Applies the update with a single findAndModify and returns the updated document.
+     *
+     * @param expectedVersion when not null the update only matches that version
+     * @return empty when no document matched the id (and version)
+     */
+    Mono<MovieInfo> findAndUpdate(String id, Update update, Long expectedVersion);
+}
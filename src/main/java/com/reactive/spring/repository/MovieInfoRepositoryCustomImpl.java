@@ -0,0 +1,166 @@
+package com.reactive.spring.repository;
+
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.domain.MovieInfoValidators;
+import com.reactive.spring.index.CastIndex;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+public class MovieInfoRepositoryCustomImpl implements MovieInfoRepositoryCustom {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public MovieInfoRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    @Override
+    public Flux<MovieInfo> findPage(Integer year, String afterId, int limit) {
+        var criteria = new Criteria();
+        if (year != null) {
+            criteria = Criteria.where("year").is(year);
+        }
+        if (afterId != null) {
+            criteria = criteria.andOperator(afterIdCriteria(afterId));
+        }
+        var query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "movieInfoId"))
+                .limit(limit);
+        return reactiveMongoTemplate.find(query, MovieInfo.class);
+    }
+
+    @Override
+    public Flux<MovieInfo> findProjected(Integer year, String cast, Set<String> fields) {
+        var criteria = new Criteria();
+        if (cast != null) {
+            criteria = Criteria.where("castKeys").is(CastIndex.normalize(cast));
+        } else if (year != null) {
+            criteria = Criteria.where("year").is(year);
+        }
+        return reactiveMongoTemplate.find(project(Query.query(criteria), fields), MovieInfo.class);
+    }
+
+    @Override
+    public Mono<MovieInfo> findProjectedById(String id, Set<String> fields) {
+        return reactiveMongoTemplate.findOne(project(Query.query(Criteria.where("movieInfoId").is(id)), fields), MovieInfo.class);
+    }
+
+    @Override
+    public Flux<MovieInfo> findByReleaseDates(Range<LocalDate> releaseDates, Range<Integer> years) {
+        var criteria = range("release_date", releaseDates);
+        if (years != null && (years.getLowerBound().isBounded() || years.getUpperBound().isBounded())) {
+            criteria = new Criteria().andOperator(criteria, range("year", years));
+        }
+        var query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "release_date"));
+        return reactiveMongoTemplate.find(query, MovieInfo.class);
+    }
+
+    @Override
+    public Mono<MovieInfoValidators> findValidators(Integer year, String cast) {
+        var criteria = new Criteria();
+        if (cast != null) {
+            criteria = Criteria.where("castKeys").is(CastIndex.normalize(cast));
+        } else if (year != null) {
+            criteria = Criteria.where("year").is(year);
+        }
+        //the unfiltered count comes from collection metadata, filtered ones from the year / cast_keys index
+        var count = cast == null && year == null
+                ? reactiveMongoTemplate.estimatedCount(MovieInfo.class)
+                : reactiveMongoTemplate.count(Query.query(criteria), MovieInfo.class);
+        var newest = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "lastModified"))
+                .limit(1);
+        newest.fields().include("lastModified");
+        var lastModified = reactiveMongoTemplate.findOne(newest, MovieInfo.class)
+                .map(movieInfo -> Optional.ofNullable(movieInfo.getLastModified()))
+                .defaultIfEmpty(Optional.empty());
+        return Mono.zip(count, lastModified)
+                .map(tuple -> new MovieInfoValidators(tuple.getT1(), tuple.getT2().orElse(null)));
+    }
+
+    @Override
+    public Mono<MovieInfoValidators> findValidatorsByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(new MovieInfoValidators(0, null));
+        }
+        var query = Query.query(Criteria.where("movieInfoId").in(ids));
+        query.fields().include("lastModified");
+        return reactiveMongoTemplate.find(query, MovieInfo.class)
+                .reduce(new MovieInfoValidators(0, null), (validators, movieInfo) -> new MovieInfoValidators(validators.count() + 1,
+                        newest(validators.lastModified(), movieInfo.getLastModified())));
+    }
+
+    private static Instant newest(Instant left, Instant right) {
+        if (left == null) {
+            return right;
+        }
+        return right == null || left.isAfter(right) ? left : right;
+    }
+
+    private static Criteria range(String key, Range<?> range) {
+        var criteria = Criteria.where(key);
+        var lower = range.getLowerBound();
+        lower.getValue().ifPresent(value -> {
+            if (lower.isInclusive()) {
+                criteria.gte(value);
+            } else {
+                criteria.gt(value);
+            }
+        });
+        var upper = range.getUpperBound();
+        upper.getValue().ifPresent(value -> {
+            if (upper.isInclusive()) {
+                criteria.lte(value);
+            } else {
+                criteria.lt(value);
+            }
+        });
+        return criteria;
+    }
+
+    private Query project(Query query, Set<String> fields) {
+        if (fields != null) {
+            //_id comes back unless excluded, which is what we want
+            fields.forEach(query.fields()::include);
+        }
+        return query;
+    }
+
+    @Override
+    public Mono<MovieInfo> findAndUpdate(String id, Update update, Long expectedVersion) {
+        var criteria = Criteria.where("movieInfoId").is(id);
+        if (expectedVersion != null) {
+            criteria = criteria.and("version").is(expectedVersion);
+        }
+        return reactiveMongoTemplate.findAndModify(Query.query(criteria), update.inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true), MovieInfo.class);
+    }
+
+    private Criteria afterIdCriteria(String afterId) {
+        //ids that are valid ObjectIds are stored as ObjectIds, others as strings.
+        //mongo sorts all strings before all ObjectIds and $gt never crosses types,
+        //so after a string id the ObjectIds still have to be read
+        if (ObjectId.isValid(afterId)) {
+            return Criteria.where("movieInfoId").gt(new ObjectId(afterId));
+        }
+        return new Criteria().orOperator(
+                Criteria.where("movieInfoId").gt(afterId),
+                Criteria.where("movieInfoId").type(JsonSchemaObject.Type.OBJECT_ID));
+    }
+}
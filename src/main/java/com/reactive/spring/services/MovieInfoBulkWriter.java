@@ -0,0 +1,127 @@
+package com.reactive.spring.services;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.reactive.spring.config.MovieInfoBulkProperties;
+import com.reactive.spring.domain.BulkBatchResult;
+import com.reactive.spring.domain.MovieInfo;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Streams MovieInfo documents into mongo as unordered bulk inserts.
+ * Documents failing the jakarta constraints are counted as failed and never sent,
+ * the rest of the batch is still written.
+ */
+@Component
+@Slf4j
+public class MovieInfoBulkWriter {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private MovieInfoBulkProperties bulkProperties;
+
+    @Autowired
+    private MovieInfoChangeNotifier movieInfoChangeNotifier;
+
+    public Flux<BulkBatchResult> insert(Flux<MovieInfo> movieInfos) {
+        //flatMapSequential only requests the next batch once a slot frees up, so the body is read at mongo's pace
+        return movieInfos
+                .buffer(bulkProperties.getBatchSize())
+                .index()
+                .flatMapSequential(batch -> insertBatch(batch.getT1(), batch.getT2()),
+                        bulkProperties.getMaxConcurrentBatches(), 1);
+    }
+
+    private Mono<BulkBatchResult> insertBatch(long batchNo, List<MovieInfo> batch) {
+        var lastModified = MovieInfoServices.now();
+        var valid = new ArrayList<MovieInfo>(batch.size());
+        //position in the batch of every valid document, write errors are reported against the valid list
+        var positions = new int[batch.size()];
+        var errors = new ArrayList<String>();
+        for (int i = 0; i < batch.size(); i++) {
+            var violations = validator.validate(batch.get(i));
+            if (violations.isEmpty()) {
+                //assign ids up front, exactly what mongo would generate, so inserted documents can be announced
+                if (batch.get(i).getMovieInfoId() == null) {
+                    batch.get(i).setMovieInfoId(new ObjectId().toHexString());
+                }
+                batch.get(i).setVersion(0L);
+                batch.get(i).setLastModified(lastModified);
+                positions[valid.size()] = i;
+                valid.add(batch.get(i));
+            } else {
+                addError(errors, "document " + i + " : " + violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(",")));
+            }
+        }
+        var invalidCount = batch.size() - valid.size();
+        if (valid.isEmpty()) {
+            return Mono.just(new BulkBatchResult(batchNo, batch.size(), 0, invalidCount, errors));
+        }
+        return reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MovieInfo.class)
+                .insert(valid)
+                .execute()
+                .map(result -> {
+                    valid.forEach(movieInfoChangeNotifier::saved);
+                    return new BulkBatchResult(batchNo, batch.size(), result.getInsertedCount(), invalidCount, errors);
+                })
+                .onErrorResume(ex -> bulkWriteErrors(ex) != null, ex -> {
+                    var writeErrors = bulkWriteErrors(ex);
+                    var failed = new boolean[valid.size()];
+                    writeErrors.forEach(error -> {
+                        failed[error.getIndex()] = true;
+                        addError(errors, "document " + positions[error.getIndex()] + " : " + error.getMessage());
+                    });
+                    for (int i = 0; i < valid.size(); i++) {
+                        if (!failed[i]) {
+                            movieInfoChangeNotifier.saved(valid.get(i));
+                        }
+                    }
+                    var inserted = valid.size() - writeErrors.size();
+                    log.warn("Bulk batch {} inserted {} of {} documents", batchNo, inserted, batch.size());
+                    return Mono.just(new BulkBatchResult(batchNo, batch.size(), inserted,
+                            invalidCount + writeErrors.size(), errors));
+                });
+    }
+
+    private void addError(List<String> errors, String error) {
+        if (errors.size() < bulkProperties.getMaxErrorsPerBatch()) {
+            errors.add(error);
+        }
+    }
+
+    private static List<BulkWriteError> bulkWriteErrors(Throwable ex) {
+        var cause = ex;
+        while (cause != null) {
+            if (cause instanceof BulkOperationException bulkOperationException) {
+                return bulkOperationException.getErrors();
+            }
+            if (cause instanceof MongoBulkWriteException mongoBulkWriteException) {
+                return mongoBulkWriteException.getWriteErrors();
+            }
+            cause = cause.getCause();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,133 @@
+package com.reactive.spring.services;
+
+import com.mongodb.MongoCommandException;
+import com.reactive.spring.config.MovieInfoChangesProperties;
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.domain.MovieInfoChangeEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Live feed of MovieInfo changes for /v1/movieinfos/changes.
+ * Every subscriber shares one change stream cursor, opened with the first subscriber and closed
+ * when the last one leaves. Each subscriber reads through its own bounded buffer, so a slow client
+ * loses events according to the overflow policy instead of slowing down the cursor or the other clients.
+ * A failed cursor is reopened after the last event it delivered, changes written during the outage still
+ * reach the subscribers.
+ */
+@Component
+@Slf4j
+public class MovieInfoChangeFeed {
+
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final MovieInfoChangesProperties properties;
+
+    private final Counter dropped;
+
+    private final Flux<MovieInfoChangeEvent> shared;
+
+    public MovieInfoChangeFeed(ReactiveMongoTemplate reactiveMongoTemplate,
+                               MovieInfoChangesProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.dropped = Counter.builder("movieinfo.changes.dropped")
+                .description("Change events discarded because a subscriber buffer was full")
+                .register(meterRegistry);
+        this.shared = Flux.defer(() -> {
+                    //one resume point per connection : a retry resumes after the last event seen, a feed reopened
+                    //for new subscribers after everyone left starts from now
+                    var resumeToken = new AtomicReference<BsonValue>();
+                    return Flux.defer(() -> reactiveMongoTemplate.changeStream(
+                                    reactiveMongoTemplate.getCollectionName(MovieInfo.class), options(resumeToken.get()), MovieInfo.class))
+                            .doOnNext(event -> resumeToken.set(event.getResumeToken()))
+                            .mapNotNull(this::toChangeEvent)
+                            .doOnError(MovieInfoChangeFeed::isHistoryLost, ex -> {
+                                log.warn("MovieInfo change feed resume token expired, changes since were lost to subscribers");
+                                resumeToken.set(null);
+                            })
+                            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                                    .maxBackoff(Duration.ofSeconds(30))
+                                    .doBeforeRetry(signal -> log.warn("MovieInfo change feed failed, resuming : {} ",
+                                            signal.failure().getMessage())));
+                })
+                .publish()
+                .refCount();
+    }
+
+    /**
+     * @param year only changes to movies of that year, deletes carry no document and are always delivered
+     * @return changes interleaved with a heartbeat event every movieinfo.changes.heartbeat-interval
+     */
+    public Flux<MovieInfoChangeEvent> changes(Integer year) {
+        var strategy = properties.getOverflowPolicy() == MovieInfoChangesProperties.OverflowPolicy.DROP
+                ? BufferOverflowStrategy.DROP_LATEST
+                : BufferOverflowStrategy.DROP_OLDEST;
+        return shared
+                .filter(event -> year == null || event.movieInfo() == null || Objects.equals(year, event.movieInfo().getYear()))
+                .onBackpressureBuffer(properties.getBufferSize(), event -> dropped.increment(), strategy)
+                .mergeWith(Flux.interval(properties.getHeartbeatInterval())
+                        .onBackpressureDrop()
+                        .map(tick -> MovieInfoChangeEvent.HEARTBEAT_EVENT));
+    }
+
+    private static ChangeStreamOptions options(BsonValue resumeToken) {
+        var options = ChangeStreamOptions.builder().returnFullDocumentOnUpdate();
+        if (resumeToken != null) {
+            options.resumeAfter(resumeToken);
+        }
+        return options.build();
+    }
+
+    private MovieInfoChangeEvent toChangeEvent(ChangeStreamEvent<MovieInfo> event) {
+        var operationType = event.getOperationType();
+        if (operationType == null) {
+            return null;
+        }
+        return switch (operationType) {
+            case INSERT, UPDATE, REPLACE -> event.getBody() == null ? null
+                    : new MovieInfoChangeEvent(MovieInfoChangeEvent.SAVED, event.getBody().getMovieInfoId(), event.getBody());
+            case DELETE -> new MovieInfoChangeEvent(MovieInfoChangeEvent.DELETED, documentId(event), null);
+            default -> null;
+        };
+    }
+
+    public static String documentId(ChangeStreamEvent<?> event) {
+        var raw = event.getRaw();
+        if (raw == null || raw.getDocumentKey() == null) {
+            return null;
+        }
+        var id = raw.getDocumentKey().get("_id");
+        if (id == null) {
+            return null;
+        }
+        //String ids that look like ObjectIds are stored as ObjectIds
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
+    //ChangeStreamHistoryLost, the resume token fell off the oplog and resuming after it fails forever
+    public static boolean isHistoryLost(Throwable ex) {
+        var cause = ex;
+        while (cause != null) {
+            if (cause instanceof MongoCommandException mongoCommandException
+                    && mongoCommandException.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,23 @@
+package com.reactive.spring.services;
+
+import com.reactive.spring.domain.MovieInfo;
+
+/**
+ * Implemented by in-memory read models that have to follow MovieInfo writes.
+ * Called for local writes, for writes seen on the change stream and for every
+ * document streamed by the startup load.
+ */
+public interface MovieInfoChangeListener {
+
+    void onSaved(MovieInfo movieInfo);
+
+    void onDeleted(String movieInfoId);
+
+    //startup load finished, every stored document has been passed to onSaved
+    default void onLoaded() {
+    }
+
+    //the source of truth was reset (collection dropped), drop everything
+    default void onCleared() {
+    }
+}
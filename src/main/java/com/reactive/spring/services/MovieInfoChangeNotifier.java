@@ -0,0 +1,58 @@
+package com.reactive.spring.services;
+
+import com.reactive.spring.domain.MovieInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Fans MovieInfo writes out to every MovieInfoChangeListener bean.
+ * A failing listener is logged and never fails the write that triggered it.
+ */
+@Component
+@Slf4j
+public class MovieInfoChangeNotifier {
+
+    private final List<MovieInfoChangeListener> listeners;
+
+    public MovieInfoChangeNotifier(ObjectProvider<MovieInfoChangeListener> listeners) {
+        this.listeners = listeners.orderedStream().toList();
+    }
+
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    public void saved(MovieInfo movieInfo) {
+        if (movieInfo != null && movieInfo.getMovieInfoId() != null) {
+            notifyListeners(listener -> listener.onSaved(movieInfo));
+        }
+    }
+
+    public void deleted(String movieInfoId) {
+        if (movieInfoId != null) {
+            notifyListeners(listener -> listener.onDeleted(movieInfoId));
+        }
+    }
+
+    public void loaded() {
+        notifyListeners(MovieInfoChangeListener::onLoaded);
+    }
+
+    public void cleared() {
+        notifyListeners(MovieInfoChangeListener::onCleared);
+    }
+
+    private void notifyListeners(Consumer<MovieInfoChangeListener> event) {
+        for (MovieInfoChangeListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException ex) {
+                log.error("MovieInfo change listener {} failed : {} ", listener.getClass().getSimpleName(), ex.getMessage(), ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.reactive.spring.services;
+
+import com.reactive.spring.exceptionHandler.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Opaque keyset cursor, base64url of "year|movieInfoId" (year left empty for the whole catalog).
+ */
+record MovieInfoCursor(Integer year, String afterId) {
+
+    private static final char SEPARATOR = '|';
+
+    String encode() {
+        var raw = (year == null ? "" : year.toString()) + SEPARATOR + afterId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static MovieInfoCursor decode(String token, Integer year) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("movieInfo cursor is not valid");
+        }
+        var separator = raw.indexOf(SEPARATOR);
+        if (separator < 0 || separator == raw.length() - 1) {
+            throw new InvalidRequestException("movieInfo cursor is not valid");
+        }
+        var cursorYear = separator == 0 ? null : parseYear(raw.substring(0, separator));
+        if (!Objects.equals(cursorYear, year)) {
+            throw new InvalidRequestException("movieInfo cursor does not belong to this query");
+        }
+        return new MovieInfoCursor(cursorYear, raw.substring(separator + 1));
+    }
+
+    private static Integer parseYear(String year) {
+        try {
+            return Integer.valueOf(year);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("movieInfo cursor is not valid");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.reactive.spring.services;
+
+import com.reactive.spring.exceptionHandler.InvalidRequestException;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Parses the ?fields= parameter, a comma separated list of MovieInfo property names.
+ */
+final class MovieInfoFields {
+
+    static final Set<String> SELECTABLE = Set.of("movieInfoId", "name", "year", "cast", "release_date", "version", "lastModified");
+
+    private MovieInfoFields() {
+    }
+
+    static Set<String> parse(String fields) {
+        var selected = new LinkedHashSet<String>();
+        for (String field : fields.split(",")) {
+            var name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!SELECTABLE.contains(name)) {
+                throw new InvalidRequestException("movieInfo fields must be any of movieInfoId, name, year, cast, release_date, version, lastModified");
+            }
+            selected.add(name);
+        }
+        if (selected.isEmpty()) {
+            throw new InvalidRequestException("movieInfo fields must not be empty");
+        }
+        return selected;
+    }
+}
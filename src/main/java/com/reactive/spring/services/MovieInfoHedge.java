@@ -0,0 +1,147 @@
+package com.reactive.spring.services;
+
+import com.reactive.spring.config.MovieInfoReadPolicyProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hedged reads for one operation. The first query's latencies go into a ring of recent samples,
+ * and once it has been slower than the configured percentile a second query is sent and whichever
+ * answers first wins, the other one is cancelled.
+ * Hedges are paid for with credits earned per request (budgetRatio each), so when a node is slow
+ * for everybody at most budgetRatio extra queries reach the rest of the replica set.
+ * Publishes movieinfo.read.hedges (tagged by outcome sent / won / skipped) and movieinfo.read.hedge.delay.
+ */
+final class MovieInfoHedge {
+
+    private static final int WINDOW = 1024;
+
+    //the delay is recomputed from the window every RECOMPUTE_EVERY samples, not per request
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private static final long CREDIT = 1000;
+
+    private final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+
+    private final AtomicLong recorded = new AtomicLong();
+
+    private final AtomicLong credits = new AtomicLong();
+
+    private final double percentile;
+
+    private final long minDelayNanos;
+
+    private final long maxDelayNanos;
+
+    private final int minSamples;
+
+    private final long creditPerRequest;
+
+    //-1 until minSamples latencies have been seen
+    private volatile long delayNanos = -1;
+
+    private final Counter sent;
+
+    private final Counter won;
+
+    private final Counter skipped;
+
+    MovieInfoHedge(String operation, MovieInfoReadPolicyProperties.Hedging properties, MeterRegistry meterRegistry) {
+        this.percentile = properties.getPercentile();
+        this.minDelayNanos = properties.getMinDelay().toNanos();
+        this.maxDelayNanos = properties.getMaxDelay().toNanos();
+        this.minSamples = Math.min(Math.max(properties.getMinSamples(), 1), WINDOW);
+        this.creditPerRequest = Math.round(properties.getBudgetRatio() * CREDIT);
+        this.sent = counter(operation, "sent", meterRegistry);
+        this.won = counter(operation, "won", meterRegistry);
+        this.skipped = counter(operation, "skipped", meterRegistry);
+        TimeGauge.builder("movieinfo.read.hedge.delay", this, TimeUnit.NANOSECONDS, hedge -> Math.max(hedge.delayNanos, 0))
+                .description("Latency of the first query after which a hedge is sent")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private static Counter counter(String operation, String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("movieinfo.read.hedges")
+                .description("Hedged MovieInfo reads by outcome")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param first  query always sent
+     * @param second query sent once first is slower than the hedge delay, a failing or empty hedge leaves the answer to first
+     */
+    <T> Mono<T> hedge(Mono<T> first, Mono<T> second) {
+        return Mono.defer(() -> {
+            earnCredit();
+            var start = System.nanoTime();
+            var timed = first.doFinally(signal -> {
+                //a cancelled first query was at least this slow, counting it keeps the percentile honest
+                if (signal != SignalType.ON_ERROR) {
+                    record(System.nanoTime() - start);
+                }
+            });
+            var delay = delayNanos;
+            if (delay < 0) {
+                return timed;
+            }
+            var hedged = Mono.delay(Duration.ofNanos(delay))
+                    .flatMap(tick -> {
+                        if (!tryAcquire()) {
+                            skipped.increment();
+                            return Mono.<T>never();
+                        }
+                        sent.increment();
+                        //an empty hedge is no answer : a lagging secondary must not report a just written document missing
+                        return second
+                                .doOnNext(answer -> won.increment())
+                                .switchIfEmpty(Mono.never())
+                                .onErrorResume(ex -> Mono.never());
+                    });
+            return Mono.firstWithSignal(timed, hedged);
+        });
+    }
+
+    Duration delay() {
+        var delay = delayNanos;
+        return delay < 0 ? null : Duration.ofNanos(delay);
+    }
+
+    void record(long nanos) {
+        var count = recorded.getAndIncrement() + 1;
+        samples.set((int) ((count - 1) % WINDOW), nanos);
+        if (count >= minSamples && (count == minSamples || count % RECOMPUTE_EVERY == 0)) {
+            recompute((int) Math.min(count, WINDOW));
+        }
+    }
+
+    private void recompute(int size) {
+        var sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        var index = Math.min(size - 1, Math.max(0, (int) Math.ceil(percentile * size) - 1));
+        delayNanos = Math.min(maxDelayNanos, Math.max(minDelayNanos, sorted[index]));
+    }
+
+    private void earnCredit() {
+        //capped at ten hedges, an idle period does not bank an unbounded burst
+        credits.getAndUpdate(credit -> Math.min(credit + creditPerRequest, 10 * CREDIT));
+    }
+
+    private boolean tryAcquire() {
+        return credits.getAndUpdate(credit -> credit >= CREDIT ? credit - CREDIT : credit) >= CREDIT;
+    }
+}
@@ -0,0 +1,70 @@
+package com.reactive.spring.services;
+
+import com.reactive.spring.config.MovieInfoSnapshotProperties;
+import com.reactive.spring.exceptionHandler.InvalidRequestException;
+import com.reactive.spring.repository.MovieInfoRepository;
+import com.reactive.spring.snapshot.MovieInfoSnapshots;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Streams the collection once at startup into every MovieInfoChangeListener,
+ * so all in-memory read models are built from a single findAll.
+ * With movieinfo.snapshot.read-model-snapshot set they are built from that snapshot file instead
+ * and caught up by the change stream, falling back to the findAll when the file is missing or
+ * cannot be caught up.
+ */
+@Component
+@ConditionalOnProperty(prefix = "movieinfo.read-model", name = "load-on-startup", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class MovieInfoReadModelLoader {
+
+    @Autowired
+    private MovieInfoRepository movieInfoRepository;
+
+    @Autowired
+    private MovieInfoChangeNotifier movieInfoChangeNotifier;
+
+    @Autowired
+    private MovieInfoSnapshots movieInfoSnapshots;
+
+    @Autowired
+    private MovieInfoSnapshotProperties snapshotProperties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (movieInfoChangeNotifier.hasListeners()) {
+            load().subscribe(
+                    count -> log.info("MovieInfo read models loaded with {} documents", count),
+                    ex -> log.error("Loading MovieInfo read models failed : {} ", ex.getMessage(), ex));
+        }
+    }
+
+    public Mono<Long> load() {
+        var snapshot = snapshotProperties.getReadModelSnapshot();
+        if (snapshot != null && !snapshot.isBlank()) {
+            if (movieInfoSnapshots.exists(snapshot)) {
+                log.info("Loading MovieInfo read models from snapshot {} ", snapshot);
+                return movieInfoSnapshots.loadReadModel(snapshot)
+                        .onErrorResume(InvalidRequestException.class, ex -> {
+                            log.warn("MovieInfo snapshot {} refused, loading read models from mongo : {} ", snapshot, ex.getMessage());
+                            return loadFromMongo();
+                        });
+            }
+            log.warn("MovieInfo snapshot {} not found, loading read models from mongo", snapshot);
+        }
+        return loadFromMongo();
+    }
+
+    public Mono<Long> loadFromMongo() {
+        return movieInfoRepository.findAll()
+                .doOnNext(movieInfoChangeNotifier::saved)
+                .count()
+                .doOnSuccess(count -> movieInfoChangeNotifier.loaded());
+    }
+}
@@ -0,0 +1,149 @@
+package com.reactive.spring.services;
+
+import com.mongodb.ReadPreference;
+import com.reactive.spring.config.MovieInfoReadPolicyProperties;
+import com.reactive.spring.exceptionHandler.OperationTimeoutException;
+import com.reactive.spring.repository.MovieInfoRepository;
+import com.reactive.spring.repository.MovieInfoRepositoryCustomImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Per operation read preference, deadline and hedging for MovieInfoServices.
+ * Every read preference in use gets its own MovieInfoRepository over a template carrying that
+ * preference, so an operation only picks its repository and the queries themselves stay unchanged.
+ * Operations without an override read from the primary through the application's repository.
+ */
+@Component
+@Slf4j
+public class MovieInfoReadPolicy {
+
+    private static final String PRIMARY_READS = MovieInfoReadPolicy.class.getName() + ".primaryReads";
+
+    private final MovieInfoReadPolicyProperties properties;
+
+    private final Map<String, MovieInfoRepository> repositoriesByOperation = new HashMap<>();
+
+    private final MovieInfoRepository primaryRepository;
+
+    private final MovieInfoRepository defaultRepository;
+
+    private final MovieInfoRepository hedgeRepository;
+
+    private final Map<String, MovieInfoHedge> hedges = new HashMap<>();
+
+    public MovieInfoReadPolicy(MovieInfoReadPolicyProperties properties,
+                               MovieInfoRepository movieInfoRepository,
+                               ReactiveMongoTemplate reactiveMongoTemplate,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        //names are parsed up front, a typo fails the startup rather than the first request
+        var repositories = new HashMap<ReadPreference, MovieInfoRepository>();
+        repositories.put(ReadPreference.primary(), movieInfoRepository);
+        this.primaryRepository = movieInfoRepository;
+        Function<String, MovieInfoRepository> repository = name -> repositories.computeIfAbsent(ReadPreference.valueOf(name),
+                readPreference -> createRepository(reactiveMongoTemplate, readPreference));
+        this.defaultRepository = repository.apply(properties.getDefaultReadPreference());
+        properties.getReadPreferences().forEach((operation, name) -> repositoriesByOperation.put(operation, repository.apply(name)));
+        var hedging = properties.getHedging();
+        this.hedgeRepository = hedging.isEnabled() ? repository.apply(hedging.getReadPreference()) : null;
+        if (hedging.isEnabled()) {
+            hedging.getOperations().forEach(operation -> {
+                hedges.put(operation, new MovieInfoHedge(operation, hedging, meterRegistry));
+                if (repository(operation) == movieInfoRepository && hedgeRepository != movieInfoRepository) {
+                    log.warn("MovieInfo {} reads from the primary but is hedged with {}, hedged answers may lag the latest update",
+                            operation, hedging.getReadPreference());
+                }
+            });
+        }
+        log.info("MovieInfo read preference : {} , overrides : {} , hedging : {} {} ",
+                properties.getDefaultReadPreference(), properties.getReadPreferences(),
+                hedging.isEnabled(), hedging.isEnabled() ? hedging.getOperations() : "");
+    }
+
+    private static MovieInfoRepository createRepository(ReactiveMongoTemplate reactiveMongoTemplate, ReadPreference readPreference) {
+        var template = new ReactiveMongoTemplate(reactiveMongoTemplate.getMongoDatabaseFactory(), reactiveMongoTemplate.getConverter());
+        template.setReadPreference(readPreference);
+        return new ReactiveMongoRepositoryFactory(template).getRepository(MovieInfoRepository.class,
+                RepositoryComposition.RepositoryFragments.just(new MovieInfoRepositoryCustomImpl(template)));
+    }
+
+    /**
+     * Repository reading with the operation's read preference, for reads only.
+     */
+    public MovieInfoRepository repository(String operation) {
+        return repositoriesByOperation.getOrDefault(operation, defaultRepository);
+    }
+
+    /**
+     * Context pinning every read below it to the primary, whatever the operations' read preferences.
+     * A listing streamed under validators read from the primary is read from the primary too, so the
+     * body is never older than the ETag it is sent with.
+     */
+    public static Context primaryReads() {
+        return Context.of(PRIMARY_READS, true);
+    }
+
+    public static boolean isPrimaryReads(ContextView context) {
+        return context.hasKey(PRIMARY_READS);
+    }
+
+    /**
+     * Streaming read with the operation's read preference, or the primary under primaryReads().
+     */
+    public <T> Flux<T> reads(String operation, Function<MovieInfoRepository, Flux<T>> query) {
+        return Flux.deferContextual(context -> query.apply(isPrimaryReads(context) ? primaryRepository : repository(operation)));
+    }
+
+    /**
+     * Runs the query against the operation's repository, and when the operation is hedged against
+     * the hedge repository too once the first query is slow.
+     */
+    public <T> Mono<T> hedged(String operation, Function<MovieInfoRepository, Mono<T>> query) {
+        var first = query.apply(repository(operation));
+        var hedge = hedges.get(operation);
+        return hedge == null ? first : hedge.hedge(first, query.apply(hedgeRepository));
+    }
+
+    public <T> Mono<T> deadline(String operation, Mono<T> source) {
+        var timeout = timeout(operation);
+        if (timeout.isZero() || timeout.isNegative()) {
+            return source;
+        }
+        return source.timeout(timeout)
+                .onErrorMap(TimeoutException.class, ex -> timedOut(operation, timeout));
+    }
+
+    //bounds the wait for the first element only, how long the query takes to answer. once it streams the pace
+    //is the consumer's, an ndjson / sse client that stops requesting is never cut off mid stream
+    public <T> Flux<T> deadline(String operation, Flux<T> source) {
+        var timeout = timeout(operation);
+        if (timeout.isZero() || timeout.isNegative()) {
+            return source;
+        }
+        return source.timeout(Mono.delay(timeout), element -> Mono.never())
+                .onErrorMap(TimeoutException.class, ex -> timedOut(operation, timeout));
+    }
+
+    private Duration timeout(String operation) {
+        return properties.getTimeouts().getOrDefault(operation, properties.getDefaultTimeout());
+    }
+
+    private static OperationTimeoutException timedOut(String operation, Duration timeout) {
+        return new OperationTimeoutException("movieInfo " + operation + " did not complete within " + timeout.toMillis() + "ms");
+    }
+}
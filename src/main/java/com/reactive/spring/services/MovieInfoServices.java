@@ -1,47 +1,335 @@
 package com.reactive.spring.services;
 
+import com.reactive.spring.cache.MovieInfoCache;
+import com.reactive.spring.config.MovieInfoBatchProperties;
+import com.reactive.spring.config.MovieInfoPaginationProperties;
+import com.reactive.spring.config.MovieInfoStreamingProperties;
+import com.reactive.spring.config.MovieInfoSuggestProperties;
+import com.reactive.spring.domain.BulkBatchResult;
 import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.domain.MovieInfoBatchItem;
+import com.reactive.spring.domain.MovieInfoChangeEvent;
+import com.reactive.spring.domain.MovieInfoPage;
+import com.reactive.spring.domain.MovieInfoPatch;
+import com.reactive.spring.domain.MovieInfoProjection;
+import com.reactive.spring.domain.MovieInfoSuggestion;
+import com.reactive.spring.domain.MovieInfoValidators;
+import com.reactive.spring.exceptionHandler.InvalidRequestException;
+import com.reactive.spring.exceptionHandler.VersionConflictException;
+import com.reactive.spring.index.CastIndex;
+import com.reactive.spring.index.TitleSuggestIndex;
+import com.reactive.spring.instrumentation.MovieInfoTracer;
 import com.reactive.spring.repository.MovieInfoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 @Service
 public class MovieInfoServices {
 
     @Autowired
     private MovieInfoRepository movieInfoRepository;
 
+    @Autowired
+    private MovieInfoCache movieInfoCache;
+
+    @Autowired
+    private MovieInfoBulkWriter movieInfoBulkWriter;
+
+    @Autowired
+    private MovieInfoPaginationProperties paginationProperties;
+
+    @Autowired
+    private MovieInfoStreamingProperties streamingProperties;
+
+    @Autowired
+    private MovieInfoChangeNotifier movieInfoChangeNotifier;
+
+    @Autowired
+    private CastIndex castIndex;
+
+    @Autowired
+    private TitleSuggestIndex titleSuggestIndex;
+
+    @Autowired
+    private MovieInfoSuggestProperties suggestProperties;
+
+    @Autowired
+    private MovieInfoBatchProperties batchProperties;
+
+    @Autowired
+    private MovieInfoTracer movieInfoTracer;
+
+    @Autowired
+    private MovieInfoSingleFlight movieInfoSingleFlight;
+
+    @Autowired
+    private MovieInfoChangeFeed movieInfoChangeFeed;
+
+    @Autowired
+    private MovieInfoWriteBatcher movieInfoWriteBatcher;
+
+    //reads pick their repository here, writes always use movieInfoRepository (the primary)
+    @Autowired
+    private MovieInfoReadPolicy movieInfoReadPolicy;
+
     public Mono<MovieInfo> addMovieInfo(MovieInfo movieInfo) {
-        return movieInfoRepository.save(movieInfo);
+        movieInfo.setVersion(0L);
+        movieInfo.setLastModified(now());
+        //the batcher announces what it wrote itself
+        var saved = movieInfoWriteBatcher.isEnabled()
+                ? movieInfoWriteBatcher.save(movieInfo)
+                : movieInfoRepository.save(movieInfo).doOnNext(movieInfoChangeNotifier::saved);
+        return movieInfoTracer.trace("addMovieInfo", movieInfo.getMovieInfoId(), movieInfoReadPolicy.deadline("addMovieInfo", saved));
+    }
+
+    public Flux<BulkBatchResult> bulkAddMovieInfos(Flux<MovieInfo> movieInfos) {
+        //no deadline, the first result waits on the upload filling a batch and a slow upload is not a slow query
+        return movieInfoTracer.trace("bulkAddMovieInfos", null, movieInfoBulkWriter.insert(movieInfos));
     }
 
     public Flux<MovieInfo> getAllMovieInfos() {
-        return movieInfoRepository.findAll();
+        //the deadline only covers the first document, the rest streams at the consumer's pace
+        return movieInfoTracer.trace("getAllMovieInfos", null, movieInfoReadPolicy.deadline("getAllMovieInfos",
+                movieInfoReadPolicy.reads("getAllMovieInfos", MovieInfoRepository::findAll)
+                        .limitRate(streamingProperties.getCursorBatchSize())));
+    }
+
+    public Mono<MovieInfoPage> getMovieInfoPage(Integer year, int limit, String after) {
+        if (limit <= 0) {
+            return Mono.error(new InvalidRequestException("movieInfo limit must be positive number"));
+        }
+        var pageSize = Math.min(limit, paginationProperties.getMaxLimit());
+        //one extra document tells us whether there is a next page
+        return movieInfoTracer.trace("getMovieInfoPage", after, movieInfoReadPolicy.deadline("getMovieInfoPage", Mono.fromSupplier(() -> after == null ? "" : MovieInfoCursor.decode(after, year).afterId())
+                .flatMap(afterId -> movieInfoReadPolicy.repository("getMovieInfoPage").findPage(year, afterId.isEmpty() ? null : afterId, pageSize + 1)
+                        .collectList())
+                .map(movieInfos -> {
+                    if (movieInfos.size() <= pageSize) {
+                        return new MovieInfoPage(movieInfos, null);
+                    }
+                    var items = movieInfos.subList(0, pageSize);
+                    var next = new MovieInfoCursor(year, items.get(pageSize - 1).getMovieInfoId()).encode();
+                    return new MovieInfoPage(items, next);
+                })));
+    }
+
+    public Flux<MovieInfoProjection> getMovieInfoProjections(Integer year, String cast, String fields) {
+        return movieInfoTracer.trace("getMovieInfoProjections", year, movieInfoReadPolicy.deadline("getMovieInfoProjections",
+                Mono.fromSupplier(() -> MovieInfoFields.parse(fields))
+                        .flatMapMany(selected -> movieInfoReadPolicy.repository("getMovieInfoProjections").findProjected(year, cast, selected)
+                                .limitRate(streamingProperties.getCursorBatchSize())
+                                .map(movieInfo -> MovieInfoProjection.of(movieInfo, selected)))));
+    }
+
+    public Mono<MovieInfoProjection> getMovieInfoProjectionById(String id, String fields) {
+        //a cached full document already answers any projection
+        return movieInfoTracer.trace("getMovieInfoProjectionById", id, movieInfoReadPolicy.deadline("getMovieInfoProjectionById",
+                Mono.fromSupplier(() -> MovieInfoFields.parse(fields))
+                        .flatMap(selected -> {
+                            var cached = movieInfoCache.getAllPresent(List.of(id)).get(id);
+                            var movieInfo = cached != null ? Mono.just(cached) : movieInfoReadPolicy.hedged("getMovieInfoProjectionById",
+                                    repository -> repository.findProjectedById(id, selected));
+                            return movieInfo.map(found -> MovieInfoProjection.of(found, selected));
+                        })));
+    }
+
+    /**
+     * Only movieInfoId, version and lastModified, enough to answer a conditional GET.
+     * A cached document answers without touching mongo, otherwise the cast list and the rest are not even read.
+     */
+    public Mono<MovieInfo> getMovieInfoValidators(String id) {
+        var cached = movieInfoCache.getAllPresent(List.of(id)).get(id);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return movieInfoTracer.trace("getMovieInfoValidators", id, movieInfoReadPolicy.deadline("getMovieInfoValidators",
+                movieInfoSingleFlight.mono("getMovieInfoValidators", id, () -> movieInfoReadPolicy.hedged("getMovieInfoValidators",
+                        repository -> repository.findProjectedById(id, Set.of("version", "lastModified"))))));
+    }
+
+    /**
+     * Validators over the same documents the listing returns : a cast listing answered from the cast index
+     * is summarized over the index's ids, not over an exact match on cast in mongo.
+     * Read from the primary by default, the listing sent with them should run under MovieInfoReadPolicy.primaryReads().
+     */
+    public Mono<MovieInfoValidators> getMovieInfoListValidators(Integer year, String cast) {
+        var repository = movieInfoReadPolicy.repository("getMovieInfoListValidators");
+        var validators = cast != null && castIndex.isLoaded()
+                ? Mono.defer(() -> repository.findValidatorsByIds(castIndex.lookup(cast)))
+                : repository.findValidators(year, cast);
+        return movieInfoTracer.trace("getMovieInfoListValidators", year, movieInfoReadPolicy.deadline("getMovieInfoListValidators",
+                movieInfoSingleFlight.mono("getMovieInfoListValidators", Arrays.asList(year, cast), () -> validators)));
     }
 
     public Mono<MovieInfo> getMovieInfoById(String id) {
-        return movieInfoRepository.findById(id).log();
+        //the deadline sits outside the single flight, every caller waits at most its own timeout
+        return movieInfoTracer.trace("getMovieInfoById", id, movieInfoReadPolicy.deadline("getMovieInfoById",
+                movieInfoSingleFlight.mono("getMovieInfoById", id, () -> findMovieInfoById(id))));
+    }
+
+    private Mono<MovieInfo> findMovieInfoById(String id) {
+        return movieInfoCache.get(id, key -> movieInfoReadPolicy.hedged("getMovieInfoById", repository -> repository.findById(key)));
+    }
+
+    public Flux<MovieInfoBatchItem> getMovieInfoBatch(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Flux.error(new InvalidRequestException("movieInfo ids must not be empty"));
+        }
+        var requested = new LinkedHashSet<>(ids);
+        if (requested.size() > batchProperties.getMaxIds()) {
+            return Flux.error(new InvalidRequestException("movieInfo batch must not exceed " + batchProperties.getMaxIds() + " ids"));
+        }
+        //found documents stream as they arrive, ids never seen are reported once the lookup completes
+        return movieInfoTracer.trace("getMovieInfoBatch", null, movieInfoReadPolicy.deadline("getMovieInfoBatch", Flux.defer(() -> {
+            var missing = new LinkedHashSet<>(requested);
+            return getMovieInfosByIds("getMovieInfoBatch", requested)
+                    .doOnNext(movieInfo -> missing.remove(movieInfo.getMovieInfoId()))
+                    .map(MovieInfoBatchItem::found)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(missing).map(MovieInfoBatchItem::missing)));
+        })));
     }
 
     public Mono<MovieInfo> updateMovieInfo(MovieInfo updatedMovieInfo, String id) {
-       return movieInfoRepository
-                .findById(id)
-                .flatMap(movieInfo -> {
-                    movieInfo.setName(updatedMovieInfo.getName());
-                    movieInfo.setCast(updatedMovieInfo.getCast());
-                    movieInfo.setYear(updatedMovieInfo.getYear());
-                    movieInfo.setRelease_date(updatedMovieInfo.getRelease_date());
-                    return movieInfoRepository.save(movieInfo);
+        //single findAndModify, the old document is never read back into the service
+        var update = new Update()
+                .set("name", updatedMovieInfo.getName())
+                .set("cast", updatedMovieInfo.getCast())
+                .set("castKeys", CastIndex.normalize(updatedMovieInfo.getCast()))
+                .set("year", updatedMovieInfo.getYear())
+                .set("release_date", updatedMovieInfo.getRelease_date());
+        return movieInfoTracer.trace("updateMovieInfo", id, movieInfoReadPolicy.deadline("updateMovieInfo",
+                applyUpdate(id, update, updatedMovieInfo.getVersion())));
+    }
+
+    public Mono<MovieInfo> patchMovieInfo(MovieInfoPatch movieInfoPatch, String id) {
+        var update = new Update();
+        if (movieInfoPatch.name() != null) {
+            update.set("name", movieInfoPatch.name());
+        }
+        if (movieInfoPatch.year() != null) {
+            update.set("year", movieInfoPatch.year());
+        }
+        if (movieInfoPatch.cast() != null) {
+            update.set("cast", movieInfoPatch.cast());
+            update.set("castKeys", CastIndex.normalize(movieInfoPatch.cast()));
+        }
+        if (movieInfoPatch.release_date() != null) {
+            update.set("release_date", movieInfoPatch.release_date());
+        }
+        return movieInfoTracer.trace("patchMovieInfo", id, movieInfoReadPolicy.deadline("patchMovieInfo",
+                applyUpdate(id, update, movieInfoPatch.version())));
+    }
+
+    private Mono<MovieInfo> applyUpdate(String id, Update update, Long expectedVersion) {
+        var updated = movieInfoRepository.findAndUpdate(id, update.set("lastModified", now()), expectedVersion);
+        if (expectedVersion != null) {
+            //no match with a version means either an unknown id (404) or a stale version (409)
+            updated = updated.switchIfEmpty(movieInfoRepository.existsById(id)
+                    .flatMap(exists -> exists
+                            ? Mono.error(new VersionConflictException("movieInfo " + id + " is no longer at version " + expectedVersion))
+                            : Mono.empty()));
+        }
+        return updated
+                .doOnNext(movieInfo -> {
+                    movieInfoCache.invalidate(id);
+                    movieInfoChangeNotifier.saved(movieInfo);
                 });
     }
 
     public Mono<Void> deleteMovieInfo(String id) {
-        return movieInfoRepository.deleteById(id);
+        return movieInfoTracer.trace("deleteMovieInfo", id, movieInfoReadPolicy.deadline("deleteMovieInfo", movieInfoRepository.deleteById(id)
+                .doOnSuccess(unused -> {
+                    movieInfoCache.invalidate(id);
+                    movieInfoChangeNotifier.deleted(id);
+                })));
     }
 
     public Flux<MovieInfo> getMovieInfoByYear(Integer year) {
-      return  movieInfoRepository.findByYear(year).log();
+      //not single-flighted, each caller pulls its own cursor at its own pace
+      return  movieInfoTracer.trace("getMovieInfoByYear", year, movieInfoReadPolicy.deadline("getMovieInfoByYear",
+              movieInfoReadPolicy.reads("getMovieInfoByYear", repository -> repository.findByYear(year))
+                      .limitRate(streamingProperties.getCursorBatchSize())));
+    }
+
+    /**
+     * Year and / or release_date range, both ends inclusive and optional. Documents stream oldest first
+     * in the order of the index serving the query.
+     */
+    public Flux<MovieInfo> getMovieInfoByRange(Integer yearFrom, Integer yearTo, LocalDate releaseDateFrom, LocalDate releaseDateTo) {
+        if (yearFrom != null && yearTo != null && yearFrom > yearTo
+                || releaseDateFrom != null && releaseDateTo != null && releaseDateFrom.isAfter(releaseDateTo)) {
+            return Flux.error(new InvalidRequestException("movieInfo range start must not be after its end"));
+        }
+        var years = inclusive(yearFrom, yearTo);
+        var repository = movieInfoReadPolicy.repository("getMovieInfoByRange");
+        var movieInfos = releaseDateFrom == null && releaseDateTo == null
+                ? repository.findByYearBetweenOrderByYearAscNameAsc(years)
+                : repository.findByReleaseDates(inclusive(releaseDateFrom, releaseDateTo), years);
+        return movieInfoTracer.trace("getMovieInfoByRange", yearFrom, movieInfoReadPolicy.deadline("getMovieInfoByRange", movieInfos
+                .limitRate(streamingProperties.getCursorBatchSize())));
+    }
+
+    private static <T> Range<T> inclusive(T from, T to) {
+        return Range.of(from == null ? Range.Bound.unbounded() : Range.Bound.inclusive(from),
+                to == null ? Range.Bound.unbounded() : Range.Bound.inclusive(to));
+    }
+
+    public Flux<MovieInfo> getMovieInfoByCast(String cast) {
+        if (!castIndex.isLoaded()) {
+            //index still loading, let mongo answer on the normalized cast_keys index, same matches as the cast index
+            return movieInfoTracer.trace("getMovieInfoByCast", cast, movieInfoReadPolicy.deadline("getMovieInfoByCast",
+                    movieInfoReadPolicy.reads("getMovieInfoByCast", repository -> repository.findByCastKeys(CastIndex.normalize(cast)))));
+        }
+        return movieInfoTracer.trace("getMovieInfoByCast", cast, movieInfoReadPolicy.deadline("getMovieInfoByCast",
+                Flux.defer(() -> getMovieInfosByIds("getMovieInfoByCast", castIndex.lookup(cast)))));
+    }
+
+    public Flux<MovieInfoChangeEvent> getMovieInfoChanges(Integer year) {
+        return movieInfoChangeFeed.changes(year);
+    }
+
+    public Flux<MovieInfoSuggestion> suggestMovieInfos(String prefix, Integer limit) {
+        if (limit != null && limit <= 0) {
+            return Flux.error(new InvalidRequestException("movieInfo limit must be positive number"));
+        }
+        //answered from memory only, nothing is suggested until the startup load is done
+        var size = limit == null ? suggestProperties.getDefaultLimit() : Math.min(limit, suggestProperties.getMaxLimit());
+        return Flux.defer(() -> Flux.fromIterable(titleSuggestIndex.suggest(prefix, size)));
+    }
+
+    //mongo keeps milliseconds, truncating keeps the in-memory copy equal to what is stored
+    static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    //cached documents first, everything else in a single $in query
+    private Flux<MovieInfo> getMovieInfosByIds(String operation, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        if (!movieInfoCache.isEnabled()) {
+            return movieInfoReadPolicy.reads(operation, repository -> repository.findAllById(ids));
+        }
+        var cached = movieInfoCache.getAllPresent(ids);
+        if (cached.size() == ids.size()) {
+            return Flux.fromIterable(cached.values());
+        }
+        var misses = ids.stream().filter(id -> !cached.containsKey(id)).toList();
+        return Flux.fromIterable(cached.values())
+                .concatWith(movieInfoReadPolicy.reads(operation, repository -> repository.findAllById(misses))
+                        .doOnNext(movieInfoCache::put));
     }
 }
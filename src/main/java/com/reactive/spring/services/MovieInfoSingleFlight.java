@@ -0,0 +1,79 @@
+package com.reactive.spring.services;
+
+import com.reactive.spring.config.MovieInfoCoalescingProperties;
+import com.reactive.spring.instrumentation.MovieInfoMetrics;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for identical concurrent single value reads (by id, validators).
+ * The first caller for an (operation, key) starts the query, callers arriving while it is in flight
+ * join it and get its result. The entry is dropped when the query terminates or every subscriber cancels,
+ * so later callers always start a fresh query.
+ * Listings are never shared : a replayed cursor would be read at the pace of the fastest subscriber
+ * and held in memory for the slowest one, undoing the cursor driven backpressure of the streaming listing.
+ */
+@Component
+public class MovieInfoSingleFlight {
+
+    private final MovieInfoCoalescingProperties properties;
+
+    private final MovieInfoMetrics movieInfoMetrics;
+
+    private final Map<FlightKey, Flux<?>> inFlight = new ConcurrentHashMap<>();
+
+    public MovieInfoSingleFlight(MovieInfoCoalescingProperties properties, MovieInfoMetrics movieInfoMetrics) {
+        this.properties = properties;
+        this.movieInfoMetrics = movieInfoMetrics;
+    }
+
+    public <T> Mono<T> mono(String operation, Object key, Supplier<Mono<T>> query) {
+        if (!properties.isEnabled()) {
+            return Mono.defer(query);
+        }
+        //singleOrEmpty rather than next, a joiner must not cancel the shared query after the first element
+        return Flux.defer(() -> join(new FlightKey(operation, key), query)).singleOrEmpty();
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Flux<T> join(FlightKey key, Supplier<Mono<T>> query) {
+        var started = new boolean[1];
+        var flight = (Flux<T>) inFlight.computeIfAbsent(key, k -> {
+            started[0] = true;
+            return start(k, query);
+        });
+        if (!started[0]) {
+            movieInfoMetrics.coalesced(key.operation());
+        }
+        return flight;
+    }
+
+    private <T> Flux<T> start(FlightKey key, Supplier<Mono<T>> query) {
+        var self = new AtomicReference<Flux<T>>();
+        //removed before the terminal signal reaches anyone, so a caller woken by it starts a fresh query.
+        //remove(key, value) so a finished flight never evicts the one that replaced it
+        Runnable land = () -> inFlight.remove(key, self.get());
+        //a Mono emits at most once, replaying one value is all a joiner ever needs
+        var flight = Mono.defer(query)
+                .flux()
+                .doOnTerminate(land)
+                .doOnCancel(land)
+                .replay(1)
+                .refCount();
+        self.set(flight);
+        return flight;
+    }
+
+    private record FlightKey(String operation, Object key) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.reactive.spring.services;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactive.spring.config.MovieInfoStatsProperties;
+import com.reactive.spring.domain.MovieInfoCastCount;
+import com.reactive.spring.domain.MovieInfoMonthCount;
+import com.reactive.spring.domain.MovieInfoYearCount;
+import com.reactive.spring.exceptionHandler.InvalidRequestException;
+import com.reactive.spring.instrumentation.MovieInfoTracer;
+import com.reactive.spring.repository.MovieInfoAggregationRepository;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Catalog statistics for reporting and dashboards.
+ * Results are kept for movieinfo.stats.cache-ttl, dashboards polling the same statistic share one
+ * aggregation per ttl (and concurrent misses share the pipeline run). Writes do not invalidate,
+ * a statistic may lag the catalog by up to the ttl.
+ */
+@Service
+public class MovieInfoStatsServices {
+
+    private final MovieInfoAggregationRepository movieInfoAggregationRepository;
+
+    private final MovieInfoStatsProperties properties;
+
+    private final MovieInfoTracer movieInfoTracer;
+
+    private final AsyncCache<String, List<?>> results;
+
+    public MovieInfoStatsServices(MovieInfoAggregationRepository movieInfoAggregationRepository,
+                                  MovieInfoStatsProperties properties,
+                                  MovieInfoTracer movieInfoTracer) {
+        this.movieInfoAggregationRepository = movieInfoAggregationRepository;
+        this.properties = properties;
+        this.movieInfoTracer = movieInfoTracer;
+        this.results = properties.getCacheTtl().isZero() ? null : Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(properties.getCacheTtl())
+                .buildAsync();
+    }
+
+    public Flux<MovieInfoYearCount> countByYear() {
+        return movieInfoTracer.trace("countByYear", null,
+                cached("years", movieInfoAggregationRepository::countByYear));
+    }
+
+    public Flux<MovieInfoMonthCount> countByReleaseMonth(Integer year) {
+        return movieInfoTracer.trace("countByReleaseMonth", year,
+                cached("months|" + year, () -> movieInfoAggregationRepository.countByReleaseMonth(year)));
+    }
+
+    public Flux<MovieInfoCastCount> topCast(Integer limit) {
+        if (limit != null && limit <= 0) {
+            return Flux.error(new InvalidRequestException("movieInfo limit must be positive number"));
+        }
+        var size = limit == null ? properties.getTopCastDefaultLimit() : Math.min(limit, properties.getTopCastMaxLimit());
+        return movieInfoTracer.trace("topCast", null,
+                cached("cast|" + size, () -> movieInfoAggregationRepository.topCast(size)));
+    }
+
+    //without a ttl the pipeline output is streamed as mongo produces it
+    @SuppressWarnings("unchecked")
+    private <T> Flux<T> cached(String key, Supplier<Flux<T>> aggregation) {
+        if (results == null) {
+            return Flux.defer(aggregation);
+        }
+        return Mono.defer(() -> Mono.fromFuture(
+                        results.get(key, (k, executor) -> aggregation.get().collectList().<List<?>>map(rows -> rows).toFuture()), true))
+                .flatMapIterable(rows -> (List<T>) rows);
+    }
+}
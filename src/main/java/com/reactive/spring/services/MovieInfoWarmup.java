@@ -0,0 +1,89 @@
+package com.reactive.spring.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactive.spring.config.MovieInfoWarmupProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Warms a new instance up before it takes traffic.
+ * Spring boot only reports readiness (ACCEPTING_TRAFFIC) once every ApplicationRunner has returned, so this
+ * blocks startup while it opens the driver connections and runs the hot read paths (page, by id, listing
+ * validators) and their JSON encoding until the JIT has compiled them. A warm-up that fails or runs past
+ * the timeout is logged and startup carries on.
+ */
+@Component
+@ConditionalOnProperty(prefix = "movieinfo.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class MovieInfoWarmup implements ApplicationRunner {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final MovieInfoServices movieInfoServices;
+
+    private final ObjectMapper objectMapper;
+
+    private final MovieInfoWarmupProperties properties;
+
+    public MovieInfoWarmup(ReactiveMongoTemplate reactiveMongoTemplate,
+                           MovieInfoServices movieInfoServices,
+                           ObjectMapper objectMapper,
+                           MovieInfoWarmupProperties properties) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.movieInfoServices = movieInfoServices;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        var start = System.nanoTime();
+        try {
+            warmup().block(properties.getTimeout());
+            log.info("MovieInfo warm-up finished in {} ms", Duration.ofNanos(System.nanoTime() - start).toMillis());
+        } catch (RuntimeException ex) {
+            log.warn("MovieInfo warm-up did not finish, taking traffic anyway : {} ", ex.getMessage());
+        }
+    }
+
+    public Mono<Void> warmup() {
+        //every ping in flight at once holds its own connection, so the pool opens that many
+        var connections = Flux.range(0, properties.getConnections())
+                .flatMap(i -> reactiveMongoTemplate.executeCommand("{ ping: 1 }"), properties.getConnections())
+                .then();
+        var reads = Flux.range(0, properties.getIterations())
+                .concatMap(i -> readRound())
+                .then();
+        return connections.then(reads);
+    }
+
+    private Mono<Void> readRound() {
+        return movieInfoServices.getMovieInfoPage(null, properties.getPageSize(), null)
+                .doOnNext(this::encode)
+                .flatMap(page -> {
+                    var byId = page.items().isEmpty()
+                            ? Mono.empty()
+                            : movieInfoServices.getMovieInfoById(page.items().get(0).getMovieInfoId()).doOnNext(this::encode);
+                    return byId.then(movieInfoServices.getMovieInfoListValidators(null, null));
+                })
+                .then();
+    }
+
+    //the codecs share this ObjectMapper, its serializers are built and cached here instead of on a first request
+    private void encode(Object value) {
+        try {
+            objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
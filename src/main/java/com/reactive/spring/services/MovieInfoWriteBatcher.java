@@ -0,0 +1,193 @@
+package com.reactive.spring.services;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.reactive.spring.config.MovieInfoWriteBatchingProperties;
+import com.reactive.spring.domain.MovieInfo;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Group commit for addMovieInfo.
+ * Concurrent inserts are held for at most maxDelay or until maxBatchSize of them are waiting, then written
+ * as one unordered bulk write and each caller gets its own document or its own error back.
+ * Documents sent without an id are inserted with an id assigned up front, documents sent with one replace
+ * (upsert) like repository.save does, so callers see the same behaviour either way.
+ * Batches are only cut when a write slot is free, callers beyond that wait in the create buffer, whose
+ * depth the write budget of the concurrency limiter already bounds.
+ */
+@Component
+@Slf4j
+public class MovieInfoWriteBatcher {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final MovieInfoWriteBatchingProperties properties;
+
+    private final MovieInfoChangeNotifier movieInfoChangeNotifier;
+
+    private final DistributionSummary batchSizes;
+
+    private volatile FluxSink<PendingWrite> pending;
+
+    //every caller not answered yet, failed together if the pipeline ever dies
+    private final Set<MonoSink<MovieInfo>> waiting = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean closed;
+
+    public MovieInfoWriteBatcher(ReactiveMongoTemplate reactiveMongoTemplate,
+                                 MovieInfoWriteBatchingProperties properties,
+                                 MovieInfoChangeNotifier movieInfoChangeNotifier,
+                                 MeterRegistry meterRegistry) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.properties = properties;
+        this.movieInfoChangeNotifier = movieInfoChangeNotifier;
+        this.batchSizes = DistributionSummary.builder("movieinfo.write.batch.size")
+                .description("addMovieInfo documents written per bulk write")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        if (properties.isEnabled()) {
+            start();
+            log.info("MovieInfo write batching enabled, maxBatchSize : {} , maxDelay : {} ",
+                    properties.getMaxBatchSize(), properties.getMaxDelay());
+        }
+    }
+
+    private void start() {
+        //the create sink serializes concurrent callers, bufferTimeout closes a batch on size or delay.
+        //fair backpressure : without it a timer firing while every write slot is busy overflows and ends the pipeline
+        Flux.<PendingWrite>create(sink -> pending = sink)
+                .bufferTimeout(properties.getMaxBatchSize(), properties.getMaxDelay(), true)
+                .flatMap(this::write, properties.getMaxConcurrentBatches())
+                .subscribe(unused -> {}, this::restart);
+    }
+
+    private void restart(Throwable ex) {
+        log.error("MovieInfo write batching failed, failing {} pending writes and restarting : {} ", waiting.size(), ex.getMessage(), ex);
+        for (MonoSink<MovieInfo> result : waiting) {
+            waiting.remove(result);
+            result.error(ex);
+        }
+        if (!closed) {
+            start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public Mono<MovieInfo> save(MovieInfo movieInfo) {
+        return Mono.create(sink -> {
+            waiting.add(sink);
+            var current = pending;
+            current.next(new PendingWrite(movieInfo, sink));
+            //raced with a failing pipeline, the write never made it into a batch
+            if (current.isCancelled()) {
+                fail(sink, new IllegalStateException("MovieInfo write batching is restarting"));
+            }
+        });
+    }
+
+    //completing flushes whatever is still buffered, nobody is left waiting on shutdown
+    @PreDestroy
+    public void close() {
+        closed = true;
+        if (pending != null) {
+            pending.complete();
+        }
+    }
+
+    private Mono<Void> write(List<PendingWrite> batch) {
+        batchSizes.record(batch.size());
+        //deferred so a mapping failure fails this batch's callers instead of the whole pipeline
+        return Mono.defer(() -> {
+                    var bulk = reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MovieInfo.class);
+                    for (PendingWrite write : batch) {
+                        var movieInfo = write.movieInfo();
+                        if (movieInfo.getMovieInfoId() == null) {
+                            movieInfo.setMovieInfoId(new ObjectId().toHexString());
+                            bulk.insert(movieInfo);
+                        } else {
+                            bulk.replaceOne(Query.query(Criteria.where("movieInfoId").is(movieInfo.getMovieInfoId())),
+                                    movieInfo, FindAndReplaceOptions.options().upsert());
+                        }
+                    }
+                    //bulk write error indexes follow the order operations were added, which is the batch order
+                    return bulk.execute();
+                })
+                .doOnNext(result -> batch.forEach(this::saved))
+                .onErrorResume(ex -> {
+                    var writeErrors = bulkWriteErrors(ex);
+                    var failed = new BulkWriteError[batch.size()];
+                    if (writeErrors != null) {
+                        writeErrors.forEach(error -> failed[error.getIndex()] = error);
+                    }
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (writeErrors == null) {
+                            fail(batch.get(i).result(), ex);
+                        } else if (failed[i] != null) {
+                            fail(batch.get(i).result(), writeError(failed[i]));
+                        } else {
+                            saved(batch.get(i));
+                        }
+                    }
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void saved(PendingWrite write) {
+        movieInfoChangeNotifier.saved(write.movieInfo());
+        waiting.remove(write.result());
+        write.result().success(write.movieInfo());
+    }
+
+    private void fail(MonoSink<MovieInfo> result, Throwable ex) {
+        waiting.remove(result);
+        result.error(ex);
+    }
+
+    private static RuntimeException writeError(BulkWriteError error) {
+        return error.getCode() == 11000
+                ? new DuplicateKeyException(error.getMessage())
+                : new DataIntegrityViolationException(error.getMessage());
+    }
+
+    private static List<BulkWriteError> bulkWriteErrors(Throwable ex) {
+        var cause = ex;
+        while (cause != null) {
+            if (cause instanceof BulkOperationException bulkOperationException) {
+                return bulkOperationException.getErrors();
+            }
+            if (cause instanceof MongoBulkWriteException mongoBulkWriteException) {
+                return mongoBulkWriteException.getWriteErrors();
+            }
+            cause = cause.getCause();
+        }
+        return null;
+    }
+
+    private record PendingWrite(MovieInfo movieInfo, MonoSink<MovieInfo> result) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.reactive.spring.snapshot;
+
+/**
+ * Layout of a MovieInfo snapshot file, all numbers big endian.
+ * <pre>
+ * header  : magic int, format version short, reserved short, document count long, created epoch millis long,
+ *           operation time long
+ * record  : body length int, body
+ * body    : presence byte, movieInfoId string, name string,
+ *           [year int], [release_date epoch day long], [version long], [lastModified epoch millis long],
+ *           [cast count int, cast strings]
+ * string  : UTF-8 length int (-1 for null), UTF-8 bytes
+ * </pre>
+ * Optional fields are only written when their presence bit is set. A reader refuses any other format version,
+ * a change to the layout bumps VERSION.
+ * The operation time is the cluster time, as a BSON timestamp, taken before the export started reading.
+ * Every write the snapshot may have missed happened after it, 0 when mongo gave none (not a replica set).
+ */
+final class MovieInfoSnapshotFormat {
+
+    static final int MAGIC = 0x4D534E50;
+
+    static final short VERSION = 2;
+
+    static final int HEADER_SIZE = 32;
+
+    static final int COUNT_OFFSET = 8;
+
+    static final int OPERATION_TIME_OFFSET = 24;
+
+    static final int HAS_YEAR = 1;
+    static final int HAS_RELEASE_DATE = 1 << 1;
+    static final int HAS_VERSION = 1 << 2;
+    static final int HAS_LAST_MODIFIED = 1 << 3;
+    static final int HAS_CAST = 1 << 4;
+
+    private MovieInfoSnapshotFormat() {
+    }
+}
@@ -0,0 +1,139 @@
+package com.reactive.spring.snapshot;
+
+import com.reactive.spring.domain.MovieInfo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static com.reactive.spring.snapshot.MovieInfoSnapshotFormat.*;
+
+/**
+ * Reads a snapshot through a read-only memory mapping, records are decoded straight out of the
+ * page cache without copying the file onto the heap first.
+ * A single mapping is limited to 2GB, far beyond the size of a catalog snapshot.
+ */
+public class MovieInfoSnapshotReader implements Closeable {
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer mapped;
+
+    private final long count;
+
+    private final long operationTime;
+
+    private long read;
+
+    public MovieInfoSnapshotReader(Path source) throws IOException {
+        this.channel = FileChannel.open(source, StandardOpenOption.READ);
+        try {
+            var size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a MovieInfo snapshot, size " + size + " : " + source);
+            }
+            this.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt() != MAGIC) {
+                throw new IOException("Not a MovieInfo snapshot : " + source);
+            }
+            var version = mapped.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported MovieInfo snapshot version " + version + " : " + source);
+            }
+            mapped.getShort();
+            this.count = mapped.getLong();
+            this.operationTime = mapped.getLong(OPERATION_TIME_OFFSET);
+            mapped.position(HEADER_SIZE);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return cluster time the export started at as a BSON timestamp value, 0 when unknown
+     */
+    public long operationTime() {
+        return operationTime;
+    }
+
+    /**
+     * @return the next document, null after the last one
+     */
+    public MovieInfo next() throws IOException {
+        if (read == count) {
+            return null;
+        }
+        if (mapped.remaining() < Integer.BYTES) {
+            throw new IOException("MovieInfo snapshot truncated after " + read + " of " + count + " documents");
+        }
+        var size = mapped.getInt();
+        if (size <= 0 || size > mapped.remaining()) {
+            throw new IOException("MovieInfo snapshot corrupt at document " + read);
+        }
+        var end = mapped.position() + size;
+        var presence = mapped.get();
+        var movieInfo = new MovieInfo();
+        movieInfo.setMovieInfoId(getString(end));
+        movieInfo.setName(getString(end));
+        if ((presence & HAS_YEAR) != 0) {
+            movieInfo.setYear(mapped.getInt());
+        }
+        if ((presence & HAS_RELEASE_DATE) != 0) {
+            movieInfo.setRelease_date(LocalDate.ofEpochDay(mapped.getLong()));
+        }
+        if ((presence & HAS_VERSION) != 0) {
+            movieInfo.setVersion(mapped.getLong());
+        }
+        if ((presence & HAS_LAST_MODIFIED) != 0) {
+            movieInfo.setLastModified(Instant.ofEpochMilli(mapped.getLong()));
+        }
+        if ((presence & HAS_CAST) != 0) {
+            var castCount = mapped.getInt();
+            //every cast entry takes at least its length
+            if (castCount < 0 || castCount > (end - mapped.position()) / Integer.BYTES) {
+                throw new IOException("MovieInfo snapshot corrupt at document " + read);
+            }
+            var cast = new ArrayList<String>(castCount);
+            for (int i = 0; i < castCount; i++) {
+                cast.add(getString(end));
+            }
+            movieInfo.setCast(cast);
+        }
+        if (mapped.position() != end) {
+            throw new IOException("MovieInfo snapshot corrupt at document " + read);
+        }
+        read++;
+        return movieInfo;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private String getString(int end) throws IOException {
+        var length = mapped.getInt();
+        if (length < 0) {
+            return null;
+        }
+        //a corrupt length must not allocate past the record
+        if (length > end - mapped.position()) {
+            throw new IOException("MovieInfo snapshot corrupt at document " + read);
+        }
+        var bytes = new byte[length];
+        mapped.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,192 @@
+package com.reactive.spring.snapshot;
+
+import com.reactive.spring.domain.MovieInfo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static com.reactive.spring.snapshot.MovieInfoSnapshotFormat.*;
+
+/**
+ * Writes a snapshot through a direct buffer, one FileChannel write per buffer fill.
+ * The file is built next to the target and moved over it by finish(), a failed or abandoned
+ * export never leaves a truncated snapshot under the real name.
+ */
+public class MovieInfoSnapshotWriter implements Closeable {
+
+    private final Path target;
+
+    private final Path temporary;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer;
+
+    private final long operationTime;
+
+    private long count;
+
+    private boolean finished;
+
+    /**
+     * @param operationTime cluster time the export started at, 0 when unknown
+     */
+    public MovieInfoSnapshotWriter(Path target, int bufferSize, long operationTime) throws IOException {
+        this.target = target;
+        this.operationTime = operationTime;
+        this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, HEADER_SIZE));
+        //count is patched in by finish()
+        header(buffer, 0, operationTime);
+    }
+
+    public void write(MovieInfo movieInfo) {
+        var id = utf8(movieInfo.getMovieInfoId());
+        var name = utf8(movieInfo.getName());
+        var cast = movieInfo.getCast();
+        byte[][] castNames = null;
+        int presence = 0;
+        int size = 1 + stringSize(id) + stringSize(name);
+        if (movieInfo.getYear() != null) {
+            presence |= HAS_YEAR;
+            size += Integer.BYTES;
+        }
+        if (movieInfo.getRelease_date() != null) {
+            presence |= HAS_RELEASE_DATE;
+            size += Long.BYTES;
+        }
+        if (movieInfo.getVersion() != null) {
+            presence |= HAS_VERSION;
+            size += Long.BYTES;
+        }
+        if (movieInfo.getLastModified() != null) {
+            presence |= HAS_LAST_MODIFIED;
+            size += Long.BYTES;
+        }
+        if (cast != null) {
+            presence |= HAS_CAST;
+            castNames = new byte[cast.size()][];
+            size += Integer.BYTES;
+            for (int i = 0; i < castNames.length; i++) {
+                castNames[i] = utf8(cast.get(i));
+                size += stringSize(castNames[i]);
+            }
+        }
+        //a record larger than the buffer gets a buffer of its own
+        var target = Integer.BYTES + size <= buffer.capacity() ? buffer : ByteBuffer.allocate(Integer.BYTES + size);
+        if (target.remaining() < Integer.BYTES + size) {
+            flush();
+        }
+        target.putInt(size);
+        target.put((byte) presence);
+        putString(target, id);
+        putString(target, name);
+        if ((presence & HAS_YEAR) != 0) {
+            target.putInt(movieInfo.getYear());
+        }
+        if ((presence & HAS_RELEASE_DATE) != 0) {
+            target.putLong(movieInfo.getRelease_date().toEpochDay());
+        }
+        if ((presence & HAS_VERSION) != 0) {
+            target.putLong(movieInfo.getVersion());
+        }
+        if ((presence & HAS_LAST_MODIFIED) != 0) {
+            target.putLong(movieInfo.getLastModified().toEpochMilli());
+        }
+        if (castNames != null) {
+            target.putInt(castNames.length);
+            for (byte[] castName : castNames) {
+                putString(target, castName);
+            }
+        }
+        if (target != buffer) {
+            flush();
+            writeFully(target.flip());
+        }
+        count++;
+    }
+
+    /**
+     * Writes the document count into the header, syncs and moves the snapshot into place.
+     *
+     * @return size of the snapshot in bytes
+     */
+    public long finish() {
+        try {
+            flush();
+            var header = ByteBuffer.allocate(HEADER_SIZE);
+            header(header, count, operationTime);
+            channel.write(header.flip(), 0);
+            channel.force(true);
+            var size = channel.size();
+            channel.close();
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+            return size;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            channel.close();
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void flush() {
+        writeFully(buffer.flip());
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) {
+        try {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void header(ByteBuffer target, long count, long operationTime) {
+        target.putInt(MAGIC);
+        target.putShort(VERSION);
+        target.putShort((short) 0);
+        target.putLong(count);
+        target.putLong(System.currentTimeMillis());
+        target.putLong(operationTime);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(byte[] value) {
+        return Integer.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer target, byte[] value) {
+        if (value == null) {
+            target.putInt(-1);
+        } else {
+            target.putInt(value.length);
+            target.put(value);
+        }
+    }
+}
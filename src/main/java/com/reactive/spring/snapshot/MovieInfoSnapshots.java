@@ -0,0 +1,233 @@
+package com.reactive.spring.snapshot;
+
+import com.reactive.spring.cache.MovieInfoChangeStreamListener;
+import com.reactive.spring.config.MovieInfoSnapshotProperties;
+import com.reactive.spring.domain.BulkBatchResult;
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.domain.MovieInfoSnapshotResult;
+import com.reactive.spring.exceptionHandler.InvalidRequestException;
+import com.reactive.spring.repository.MovieInfoRepository;
+import com.reactive.spring.services.MovieInfoBulkWriter;
+import com.reactive.spring.services.MovieInfoChangeNotifier;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonTimestamp;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+/**
+ * Exports the collection to a binary snapshot file and loads one back, either into mongo through
+ * the bulk writer or straight into the in-memory read models without touching mongo at all.
+ * All file I/O runs on boundedElastic, snapshots are addressed by bare file name inside
+ * movieinfo.snapshot.directory.
+ * A snapshot records the cluster time its export started at. Read models loaded from it are caught up
+ * by replaying the change stream from that time, without the change stream listener a snapshot is
+ * refused for the read models, writes made since it was taken would be missing for good.
+ */
+@Component
+@Slf4j
+public class MovieInfoSnapshots {
+
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,127}");
+
+    private final MovieInfoSnapshotProperties properties;
+
+    private final MovieInfoRepository movieInfoRepository;
+
+    private final MovieInfoBulkWriter movieInfoBulkWriter;
+
+    private final MovieInfoChangeNotifier movieInfoChangeNotifier;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final ObjectProvider<MovieInfoChangeStreamListener> changeStreamListener;
+
+    public MovieInfoSnapshots(MovieInfoSnapshotProperties properties,
+                              MovieInfoRepository movieInfoRepository,
+                              MovieInfoBulkWriter movieInfoBulkWriter,
+                              MovieInfoChangeNotifier movieInfoChangeNotifier,
+                              ReactiveMongoTemplate reactiveMongoTemplate,
+                              ObjectProvider<MovieInfoChangeStreamListener> changeStreamListener) {
+        this.properties = properties;
+        this.movieInfoRepository = movieInfoRepository;
+        this.movieInfoBulkWriter = movieInfoBulkWriter;
+        this.movieInfoChangeNotifier = movieInfoChangeNotifier;
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.changeStreamListener = changeStreamListener;
+    }
+
+    public boolean exists(String snapshot) {
+        return Files.isRegularFile(resolve(snapshot));
+    }
+
+    public Mono<MovieInfoSnapshotResult> export(String snapshot) {
+        return Mono.defer(() -> {
+            var path = resolve(snapshot);
+            var start = System.nanoTime();
+            return operationTime().flatMap(operationTime -> Mono.using(
+                    () -> {
+                        Files.createDirectories(path.getParent());
+                        return new MovieInfoSnapshotWriter(path, (int) properties.getBufferSize().toBytes(), operationTime);
+                    },
+                    writer -> movieInfoRepository.findAll()
+                            .publishOn(Schedulers.boundedElastic())
+                            .doOnNext(writer::write)
+                            .then(Mono.fromCallable(() -> {
+                                var bytes = writer.finish();
+                                return new MovieInfoSnapshotResult(snapshot, writer.count(), 0, bytes, millisSince(start));
+                            })),
+                    MovieInfoSnapshots::closeQuietly));
+        })
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnSuccess(result -> log.info("MovieInfo snapshot exported : {} ", result));
+    }
+
+    /**
+     * Bulk inserts the snapshot into mongo. Documents get a fresh version and lastModified like any
+     * other bulk insert, and ids already present in the collection are reported as failed.
+     */
+    public Mono<MovieInfoSnapshotResult> importToMongo(String snapshot) {
+        return Mono.defer(() -> {
+            var path = resolve(snapshot);
+            var start = System.nanoTime();
+            return movieInfoBulkWriter.insert(read(path))
+                    .reduce(new long[2], (totals, batch) -> add(totals, batch))
+                    .map(totals -> new MovieInfoSnapshotResult(snapshot, totals[0], totals[1], size(path), millisSince(start)));
+        }).doOnSuccess(result -> log.info("MovieInfo snapshot imported into mongo : {} ", result));
+    }
+
+    /**
+     * Rebuilds every read model from the snapshot and replays the changes made since it was taken.
+     * The models are cleared first, so lookups fall back to mongo until the load has completed.
+     */
+    public Mono<MovieInfoSnapshotResult> importToReadModel(String snapshot) {
+        return Mono.defer(() -> {
+            var path = resolve(snapshot);
+            var start = System.nanoTime();
+            return replayPoint(path)
+                    .flatMap(operationTime -> {
+                        movieInfoChangeNotifier.cleared();
+                        return loadReadModel(path, operationTime);
+                    })
+                    .map(count -> new MovieInfoSnapshotResult(snapshot, count, 0, size(path), millisSince(start)));
+        }).doOnSuccess(result -> log.info("MovieInfo snapshot imported into the read models : {} ", result));
+    }
+
+    /**
+     * Feeds the snapshot to the read models, marks them loaded and replays the changes made since
+     * it was taken, used by the startup loader.
+     * Fails with InvalidRequestException before touching the read models when the snapshot cannot be caught up.
+     */
+    public Mono<Long> loadReadModel(String snapshot) {
+        return Mono.defer(() -> {
+            var path = resolve(snapshot);
+            return replayPoint(path).flatMap(operationTime -> loadReadModel(path, operationTime));
+        });
+    }
+
+    private Mono<Long> loadReadModel(Path path, BsonTimestamp operationTime) {
+        return read(path)
+                .doOnNext(movieInfoChangeNotifier::saved)
+                .count()
+                .doOnSuccess(count -> {
+                    movieInfoChangeNotifier.loaded();
+                    //after the feed, a replayed change must not be overwritten by the older snapshot copy
+                    changeStreamListener.getObject().replayFrom(operationTime);
+                });
+    }
+
+    //where the change stream has to be replayed from to catch the snapshot up
+    private Mono<BsonTimestamp> replayPoint(Path path) {
+        return Mono.fromCallable(() -> {
+            if (changeStreamListener.getIfAvailable() == null) {
+                throw new InvalidRequestException("snapshots can only be loaded into the read models with "
+                        + "movieinfo.cache.change-stream.enabled, changes made since would be missed");
+            }
+            if (!Files.isRegularFile(path)) {
+                throw new InvalidRequestException("snapshot " + path.getFileName() + " does not exist");
+            }
+            try (var reader = new MovieInfoSnapshotReader(path)) {
+                if (reader.operationTime() == 0) {
+                    throw new InvalidRequestException("snapshot " + path.getFileName()
+                            + " has no cluster time, changes made since it was taken cannot be replayed");
+                }
+                return new BsonTimestamp(reader.operationTime());
+            } catch (IOException ex) {
+                throw new InvalidRequestException("snapshot " + path.getFileName() + " cannot be read : " + ex.getMessage());
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    //cluster time before the export reads anything, every write it may miss comes after it
+    private Mono<Long> operationTime() {
+        return reactiveMongoTemplate.executeCommand("{ hello: 1 }")
+                .map(reply -> reply.get("operationTime") instanceof BsonTimestamp timestamp ? timestamp.getValue() : 0L);
+    }
+
+    private Flux<MovieInfo> read(Path path) {
+        return Flux.using(
+                () -> {
+                    if (!Files.isRegularFile(path)) {
+                        throw new InvalidRequestException("snapshot " + path.getFileName() + " does not exist");
+                    }
+                    return new MovieInfoSnapshotReader(path);
+                },
+                reader -> Flux.<MovieInfo>generate(sink -> {
+                    try {
+                        var movieInfo = reader.next();
+                        if (movieInfo == null) {
+                            sink.complete();
+                        } else {
+                            sink.next(movieInfo);
+                        }
+                    } catch (IOException ex) {
+                        sink.error(new UncheckedIOException(ex));
+                    }
+                }),
+                MovieInfoSnapshots::closeQuietly)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Path resolve(String snapshot) {
+        //bare names only, a snapshot can never be read or written outside the directory
+        if (snapshot == null || !SNAPSHOT_NAME.matcher(snapshot).matches()) {
+            throw new InvalidRequestException("snapshot name must match " + SNAPSHOT_NAME.pattern());
+        }
+        return Path.of(properties.getDirectory()).toAbsolutePath().resolve(snapshot);
+    }
+
+    private static long[] add(long[] totals, BulkBatchResult batch) {
+        totals[0] += batch.inserted();
+        totals[1] += batch.failed();
+        return totals;
+    }
+
+    private static long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception ex) {
+            log.warn("Closing MovieInfo snapshot failed : {} ", ex.getMessage());
+        }
+    }
+}
@@ -3,7 +3,8 @@ package com.reactive.spring;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+//no mongo behind this one, the warm-up would only wait out its timeout
+@SpringBootTest(properties = "movieinfo.warmup.enabled=false")
 class MoviesInfoServicesApplicationTests {
 
 	@Test
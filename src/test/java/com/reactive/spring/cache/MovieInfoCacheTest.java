@@ -0,0 +1,92 @@
+package com.reactive.spring.cache;
+
+import com.reactive.spring.config.MovieInfoCacheProperties;
+import com.reactive.spring.domain.MovieInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MovieInfoCacheTest {
+
+    MovieInfoCache movieInfoCache;
+
+    AtomicInteger loads;
+
+    MovieInfo movieInfo = new MovieInfo("abc", "Dark Knight Rises",
+            2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
+
+    @BeforeEach
+    void setUp() {
+        var properties = new MovieInfoCacheProperties();
+        properties.setEnabled(true);
+        movieInfoCache = new MovieInfoCache(properties);
+        loads = new AtomicInteger();
+    }
+
+    Mono<MovieInfo> slowLoader(String id) {
+        return Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return movieInfo;
+        }).delayElement(Duration.ofMillis(100));
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() {
+        var movieInfoFlux = Flux.range(0, 10)
+                .flatMap(i -> movieInfoCache.get("abc", this::slowLoader));
+
+        StepVerifier.create(movieInfoFlux)
+                .expectNextCount(10)
+                .verifyComplete();
+
+        assertEquals(1, loads.get());
+        assertEquals(9, movieInfoCache.stats().hitCount());
+        assertEquals(1, movieInfoCache.stats().missCount());
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        movieInfoCache.get("abc", this::slowLoader).block();
+        movieInfoCache.invalidate("abc");
+        movieInfoCache.get("abc", this::slowLoader).block();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void emptyResultIsNotCached() {
+        StepVerifier.create(movieInfoCache.get("def", id -> Mono.empty()))
+                .verifyComplete();
+
+        assertEquals(0, movieInfoCache.stats().size());
+    }
+
+    @Test
+    void getAllPresentSkipsMissingAndInFlightEntries() {
+        movieInfoCache.put(movieInfo);
+        movieInfoCache.get("def", this::slowLoader).subscribe();
+
+        var present = movieInfoCache.getAllPresent(List.of("abc", "def", "ghi"));
+
+        assertEquals(1, present.size());
+        assertEquals(movieInfo, present.get("abc"));
+    }
+
+    @Test
+    void disabledCacheAlwaysLoads() {
+        movieInfoCache = new MovieInfoCache(new MovieInfoCacheProperties());
+        movieInfoCache.get("abc", this::slowLoader).block();
+        movieInfoCache.get("abc", this::slowLoader).block();
+
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,207 @@
+package com.reactive.spring.cache;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.reactive.spring.config.MovieInfoCacheProperties;
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.services.MovieInfoChangeNotifier;
+import com.reactive.spring.services.MovieInfoReadModelLoader;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MovieInfoChangeStreamListenerTest {
+
+    ReactiveMongoTemplate reactiveMongoTemplate;
+
+    MovieInfoCache movieInfoCache;
+
+    MovieInfoChangeNotifier movieInfoChangeNotifier;
+
+    MovieInfoReadModelLoader readModelLoader;
+
+    ResumeTokenStore resumeTokenStore;
+
+    //what the token collection holds for this node
+    AtomicReference<BsonValue> storedToken = new AtomicReference<>();
+
+    MovieInfoChangeStreamListener listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+        movieInfoCache = mock(MovieInfoCache.class);
+        movieInfoChangeNotifier = mock(MovieInfoChangeNotifier.class);
+        readModelLoader = mock(MovieInfoReadModelLoader.class);
+        resumeTokenStore = mock(ResumeTokenStore.class);
+        when(reactiveMongoTemplate.getCollectionName(MovieInfo.class)).thenReturn("movieInfo");
+        when(resumeTokenStore.load()).thenReturn(Mono.defer(() -> Mono.justOrEmpty(storedToken.get())));
+        when(resumeTokenStore.save(any())).thenReturn(Mono.empty());
+        when(resumeTokenStore.clear()).thenReturn(Mono.fromRunnable(() -> storedToken.set(null)));
+        when(readModelLoader.loadFromMongo()).thenReturn(Mono.just(3L));
+        ObjectProvider<MovieInfoReadModelLoader> loaderProvider = mock(ObjectProvider.class);
+        when(loaderProvider.getIfAvailable()).thenReturn(readModelLoader);
+
+        var properties = new MovieInfoCacheProperties.ChangeStream();
+        properties.setTokenPersistInterval(Duration.ofMillis(20));
+        listener = new MovieInfoChangeStreamListener(reactiveMongoTemplate, movieInfoCache, movieInfoChangeNotifier,
+                loaderProvider, properties, resumeTokenStore);
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.stop();
+    }
+
+    @SafeVarargs
+    final void changeStreams(Flux<ChangeStreamEvent<MovieInfo>> first, Flux<ChangeStreamEvent<MovieInfo>>... then) {
+        when(reactiveMongoTemplate.changeStream(eq("movieInfo"), any(ChangeStreamOptions.class), eq(MovieInfo.class)))
+                .thenReturn(first, then);
+    }
+
+    List<ChangeStreamOptions> openedWith(int streams) {
+        var options = ArgumentCaptor.forClass(ChangeStreamOptions.class);
+        verify(reactiveMongoTemplate, timeout(5000).times(streams)).changeStream(eq("movieInfo"), options.capture(), eq(MovieInfo.class));
+        return options.getAllValues();
+    }
+
+    @SuppressWarnings("unchecked")
+    static ChangeStreamEvent<MovieInfo> event(OperationType operationType, String id, MovieInfo body, String token) {
+        ChangeStreamDocument<Document> raw = mock(ChangeStreamDocument.class);
+        when(raw.getDocumentKey()).thenReturn(new BsonDocument("_id", new BsonString(id)));
+        ChangeStreamEvent<MovieInfo> event = mock(ChangeStreamEvent.class);
+        when(event.getRaw()).thenReturn(raw);
+        when(event.getOperationType()).thenReturn(operationType);
+        when(event.getBody()).thenReturn(body);
+        when(event.getResumeToken()).thenReturn(token(token));
+        return event;
+    }
+
+    static BsonValue token(String data) {
+        return new BsonDocument("_data", new BsonString(data));
+    }
+
+    static MovieInfo movieInfo(String id) {
+        return new MovieInfo(id, "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15"));
+    }
+
+    @Test
+    void changesReachTheCacheAndTheReadModels() {
+        var inserted = movieInfo("1");
+        changeStreams(Flux.just(
+                event(OperationType.INSERT, "1", inserted, "t1"),
+                //the full document was gone by the time the update was looked up
+                event(OperationType.UPDATE, "abc", null, "t2"),
+                event(OperationType.DELETE, "2", null, "t3"),
+                event(OperationType.INVALIDATE, "3", null, "t4")));
+
+        listener.start();
+
+        verify(movieInfoChangeNotifier, timeout(5000)).cleared();
+        verify(movieInfoCache).put(inserted);
+        verify(movieInfoChangeNotifier).saved(inserted);
+        verify(movieInfoCache).invalidate("abc");
+        verify(movieInfoCache).invalidate("2");
+        verify(movieInfoChangeNotifier).deleted("2");
+        verify(movieInfoCache).invalidateAll();
+        verify(movieInfoChangeNotifier, times(1)).saved(any());
+    }
+
+    @Test
+    void resumesFromTheStoredToken() {
+        storedToken.set(token("t0"));
+        changeStreams(Flux.never());
+
+        listener.start();
+
+        var options = openedWith(1).get(0);
+        assertTrue(options.isResumeAfter());
+        assertEquals(Optional.of(token("t0")), options.getResumeToken());
+    }
+
+    @Test
+    void persistsTheLatestResumeToken() {
+        changeStreams(Flux.just(
+                        event(OperationType.INSERT, "1", movieInfo("1"), "t1"),
+                        event(OperationType.INSERT, "2", movieInfo("2"), "t2"))
+                .concatWith(Flux.never()));
+
+        listener.start();
+        //sampled, only the newest token of an interval is written
+        verify(resumeTokenStore, timeout(5000)).save(token("t2"));
+
+        //and once more on shutdown
+        listener.stop();
+        verify(resumeTokenStore, times(2)).save(token("t2"));
+    }
+
+    @Test
+    void historyLostFlushesReloadsAndStartsOver() {
+        storedToken.set(token("t0"));
+        var historyLost = new MongoCommandException(new BsonDocument("ok", new BsonInt32(0))
+                .append("code", new BsonInt32(286))
+                .append("errmsg", new BsonString("resume point may no longer be in the oplog")), new ServerAddress());
+        changeStreams(Flux.error(historyLost), Flux.never());
+
+        listener.start();
+
+        var options = openedWith(2);
+        assertEquals(Optional.of(token("t0")), options.get(0).getResumeToken());
+        assertEquals(Optional.empty(), options.get(1).getResumeToken());
+        verify(movieInfoCache).invalidateAll();
+        verify(movieInfoChangeNotifier).cleared();
+        verify(resumeTokenStore).clear();
+        //never from a snapshot, it would be older than the history that was lost
+        verify(readModelLoader).loadFromMongo();
+        verify(readModelLoader, never()).load();
+    }
+
+    @Test
+    void replayFromReopensAtTheSnapshotTime() {
+        storedToken.set(token("t0"));
+        changeStreams(Flux.never(), Flux.never());
+        listener.start();
+        openedWith(1);
+
+        var snapshotTime = new BsonTimestamp(1719224130, 7);
+        listener.replayFrom(snapshotTime);
+
+        var reopened = openedWith(2).get(1);
+        //the stored token may be newer than the snapshot, it is not used
+        assertEquals(Optional.empty(), reopened.getResumeToken());
+        assertEquals(Optional.of(snapshotTime), reopened.getResumeBsonTimestamp());
+    }
+}
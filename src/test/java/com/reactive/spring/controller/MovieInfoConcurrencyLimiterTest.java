@@ -0,0 +1,96 @@
+package com.reactive.spring.controller;
+
+import com.reactive.spring.config.MovieInfoConcurrencyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MovieInfoConcurrencyLimiterTest {
+
+    static final long MILLIS = 1_000_000;
+
+    MovieInfoConcurrencyLimiter limiter;
+
+    SimpleMeterRegistry meterRegistry;
+
+    long clock;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new MovieInfoConcurrencyProperties();
+        properties.setRead(new MovieInfoConcurrencyProperties.Budget(4, 2, 8));
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new MovieInfoConcurrencyLimiter("read", properties, meterRegistry);
+    }
+
+    //runs limit requests concurrently, every one taking latency
+    void round(long latency) {
+        var admitted = limiter.limit();
+        for (int i = 0; i < admitted; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        for (int i = 0; i < admitted; i++) {
+            limiter.release(clock, clock + latency, false);
+        }
+        clock += latency;
+    }
+
+    @Test
+    void requestsBeyondTheLimitAreShed() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, meterRegistry.get("movieinfo.concurrency.shed").tag("budget", "read").counter().count());
+
+        limiter.releaseIgnored();
+        assertTrue(limiter.tryAcquire());
+        assertEquals(4, meterRegistry.get("movieinfo.concurrency.inflight").gauge().value());
+    }
+
+    @Test
+    void limitGrowsWhileLatencyHolds() {
+        for (int i = 0; i < 20; i++) {
+            round(10 * MILLIS);
+        }
+        assertEquals(8, limiter.limit());
+        assertEquals(8, meterRegistry.get("movieinfo.concurrency.limit").gauge().value());
+    }
+
+    @Test
+    void limitBacksOffOncePerRoundTripWhenLatencyRises() {
+        for (int i = 0; i < 20; i++) {
+            round(10 * MILLIS);
+        }
+        round(100 * MILLIS);
+        //eight slow requests in the same round trip cut the limit once
+        assertEquals(7, limiter.limit());
+
+        for (int i = 0; i < 20; i++) {
+            round(100 * MILLIS);
+        }
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    void serverErrorsBackOff() {
+        assertTrue(limiter.tryAcquire());
+        limiter.release(0, MILLIS, true);
+
+        assertEquals(3, limiter.limit());
+    }
+
+    @Test
+    void idleServiceKeepsItsLimit() {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(clock, clock + MILLIS, false);
+            clock += MILLIS;
+        }
+        assertEquals(4, limiter.limit());
+    }
+}
@@ -0,0 +1,171 @@
+package com.reactive.spring.controller;
+
+import com.reactive.spring.config.MovieInfoConcurrencyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MovieInfoLoadSheddingFilterTest {
+
+    MovieInfoLoadSheddingFilter filter;
+
+    SimpleMeterRegistry meterRegistry;
+
+    List<Disposable> held = new ArrayList<>();
+
+    //answers right away
+    WebFilterChain ok = exchange -> exchange.getResponse().setComplete();
+
+    //admitted and never completes, keeps its permit
+    WebFilterChain hold = exchange -> Mono.never();
+
+    @BeforeEach
+    void setUp() {
+        var properties = new MovieInfoConcurrencyProperties();
+        properties.setRead(new MovieInfoConcurrencyProperties.Budget(2, 1, 4));
+        properties.setWrite(new MovieInfoConcurrencyProperties.Budget(1, 1, 2));
+        properties.setStreamLimit(2);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new MovieInfoLoadSheddingFilter(properties, meterRegistry);
+    }
+
+    MockServerWebExchange run(MockServerHttpRequest request, WebFilterChain chain) {
+        var exchange = MockServerWebExchange.from(request);
+        if (chain == hold) {
+            held.add(filter.filter(exchange, chain).subscribe());
+        } else {
+            filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+        }
+        return exchange;
+    }
+
+    //doFinally hands the permit back after the response completed, block may return just before that
+    double limit(String budget) {
+        var inFlight = meterRegistry.get("movieinfo.concurrency.inflight").tag("budget", budget).gauge();
+        var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (inFlight.value() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        return meterRegistry.get("movieinfo.concurrency.limit").tag("budget", budget).gauge().value();
+    }
+
+    @Test
+    void requestsOverTheLimitGet503WithRetryAfter() {
+        run(MockServerHttpRequest.get("/v1/movieinfos/abc").build(), hold);
+        run(MockServerHttpRequest.get("/v1/movieinfos/abc").build(), hold);
+
+        var shed = run(MockServerHttpRequest.get("/v1/movieinfos/abc").build(), ok);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, shed.getResponse().getStatusCode());
+        assertEquals("1", shed.getResponse().getHeaders().getFirst("Retry-After"));
+        assertEquals(1, meterRegistry.get("movieinfo.concurrency.shed").tag("budget", "read").counter().count());
+
+        //a cancelled request gives its permit back
+        held.forEach(Disposable::dispose);
+        assertNull(run(MockServerHttpRequest.get("/v1/movieinfos/abc").build(), ok).getResponse().getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    void readsAndWritesHaveSeparateBudgets() {
+        run(MockServerHttpRequest.get("/v1/movieinfos/abc").build(), hold);
+        run(MockServerHttpRequest.get("/v1/movieinfos/abc").build(), hold);
+
+        //reads are exhausted, writes are not
+        var write = run(MockServerHttpRequest.post("/v1/movieinfos").build(), hold);
+        assertNull(write.getResponse().getStatusCode());
+
+        //the batch lookup is a POST but draws from the read budget
+        var batch = run(MockServerHttpRequest.post("/v1/movieinfos/batch").build(), ok);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, batch.getResponse().getStatusCode());
+
+        var secondWrite = run(MockServerHttpRequest.put("/v1/movieinfos/abc").build(), ok);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, secondWrite.getResponse().getStatusCode());
+        held.forEach(Disposable::dispose);
+    }
+
+    @Test
+    void changeFeedAndOtherPathsAreNotLimited() {
+        run(MockServerHttpRequest.get("/v1/movieinfos/abc").build(), hold);
+        run(MockServerHttpRequest.get("/v1/movieinfos/abc").build(), hold);
+
+        for (var path : List.of("/v1/movieinfos/changes", "/v1/movieinfos/changes?year=2005", "/v1/admin/cache/stats")) {
+            var exchange = run(MockServerHttpRequest.get(path).build(), ok);
+            assertNotEquals(HttpStatus.SERVICE_UNAVAILABLE, exchange.getResponse().getStatusCode());
+        }
+        assertEquals(0, meterRegistry.get("movieinfo.concurrency.shed").tag("budget", "read").counter().count());
+        held.forEach(Disposable::dispose);
+    }
+
+    @Test
+    void listingsAndBulkUploadsHaveTheirOwnFixedBudget() {
+        run(MockServerHttpRequest.get("/v1/movieinfos").build(), hold);
+        run(MockServerHttpRequest.post("/v1/movieinfos/bulk").build(), hold);
+
+        //two long streams hold no read or write permit
+        for (var request : List.of(MockServerHttpRequest.get("/v1/movieinfos/abc").build(),
+                MockServerHttpRequest.get("/v1/movieinfos?limit=10").build(),
+                MockServerHttpRequest.head("/v1/movieinfos").build(),
+                MockServerHttpRequest.put("/v1/movieinfos/abc").build(),
+                MockServerHttpRequest.delete("/v1/movieinfos/abc").build())) {
+            assertNull(run(request, ok).getResponse().getStatusCode());
+        }
+
+        //but a third stream is shed
+        var listing = run(MockServerHttpRequest.get("/v1/movieinfos?year=2005").build(), ok);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, listing.getResponse().getStatusCode());
+        assertEquals(1, meterRegistry.get("movieinfo.concurrency.shed").tag("budget", "stream").counter().count());
+        held.forEach(Disposable::dispose);
+    }
+
+    @Test
+    void longStreamsNeverMoveTheLimits() {
+        //every request takes about 10ms
+        WebFilterChain answer = exchange -> Mono.delay(Duration.ofMillis(10)).then(exchange.getResponse().setComplete());
+        //the first requests through a cold jvm are slow, they would skew the baseline
+        run(MockServerHttpRequest.put("/v1/movieinfos/abc").build(), answer);
+        setUp();
+        for (int i = 0; i < 10; i++) {
+            run(MockServerHttpRequest.put("/v1/movieinfos/abc").build(), answer);
+        }
+        //a write limit grown to its max of 2, any back off shows
+        assertEquals(2, limit("write"));
+
+        //an upload taking a second, sampled against the write limit it would back off
+        run(MockServerHttpRequest.post("/v1/movieinfos/bulk").build(),
+                exchange -> answer.filter(exchange).then(Mono.delay(Duration.ofSeconds(1))).then());
+
+        assertEquals(2, limit("write"));
+        assertEquals(2, limit("stream"));
+    }
+
+    @Test
+    void slowWritesAreSampledAtCompletion() {
+        WebFilterChain answer = exchange -> Mono.delay(Duration.ofMillis(10)).then(exchange.getResponse().setComplete());
+        run(MockServerHttpRequest.put("/v1/movieinfos/abc").build(), answer);
+        setUp();
+        for (int i = 0; i < 10; i++) {
+            run(MockServerHttpRequest.put("/v1/movieinfos/abc").build(), answer);
+        }
+        assertEquals(2, limit("write"));
+
+        //headers out right away, the rest of the response is slow : the limit backs off
+        run(MockServerHttpRequest.put("/v1/movieinfos/abc").build(),
+                exchange -> answer.filter(exchange).then(Mono.delay(Duration.ofSeconds(2))).then());
+
+        assertEquals(1, limit("write"));
+    }
+}
@@ -0,0 +1,143 @@
+package com.reactive.spring.controller.intg;
+
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.domain.MovieInfoCastCount;
+import com.reactive.spring.domain.MovieInfoMonthCount;
+import com.reactive.spring.domain.MovieInfoYearCount;
+import com.reactive.spring.repository.MovieInfoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "movieinfo.stats.cache-ttl=0s")
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+class MovieInfoStatsControllerIntgTest {
+
+    @Autowired
+    MovieInfoRepository movieInfoRepository;
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    String STATS_URI="/v1/movieinfos/stats";
+
+    @BeforeEach
+    void setUp() {
+        var movieinfos = List.of(new MovieInfo( null, "Batman Begins",
+                        2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")),
+                new MovieInfo(null, "Kingdom of Heaven",
+                        2005, List.of("Orlando Bloom"), LocalDate.parse("2005-05-06")),
+                new MovieInfo(null, "The Dark Knight",
+                        2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")),
+                new MovieInfo("abc", "Dark Knight Rises",
+                        2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")));
+
+        movieInfoRepository.saveAll(movieinfos)
+                .blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        movieInfoRepository.deleteAll().block();
+    }
+
+    @Test
+    void countByYear(){
+        webTestClient
+                .get()
+                .uri(STATS_URI +"/years")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfoYearCount.class)
+                .isEqualTo(List.of(new MovieInfoYearCount(2005, 2),
+                        new MovieInfoYearCount(2008, 1),
+                        new MovieInfoYearCount(2012, 1)));
+    }
+
+    @Test
+    void countByReleaseMonth(){
+        webTestClient
+                .get()
+                .uri(STATS_URI +"/release-months?year=2005")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfoMonthCount.class)
+                .isEqualTo(List.of(new MovieInfoMonthCount("2005-05", 1),
+                        new MovieInfoMonthCount("2005-06", 1)));
+    }
+
+    @Test
+    void countByReleaseMonth_firstOfTheMonthEastOfUtc(){
+        //dates are stored as midnight in the JVM zone, in Kolkata that is the previous day in UTC
+        var defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kolkata"));
+        try {
+            movieInfoRepository.save(new MovieInfo(null, "Batman Returns",
+                    1992, List.of("Michael Keaton"), LocalDate.parse("1992-07-01"))).block();
+
+            webTestClient
+                    .get()
+                    .uri(STATS_URI +"/release-months?year=1992")
+                    .exchange()
+                    .expectStatus()
+                    .is2xxSuccessful()
+                    .expectBodyList(MovieInfoMonthCount.class)
+                    .isEqualTo(List.of(new MovieInfoMonthCount("1992-07", 1)));
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @Test
+    void topCast(){
+        webTestClient
+                .get()
+                .uri(STATS_URI +"/cast?limit=1")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfoCastCount.class)
+                .consumeWith(listEntityExchangeResult -> {
+                    var castCounts=listEntityExchangeResult.getResponseBody();
+                    assertNotNull(castCounts);
+                    assertEquals(List.of(new MovieInfoCastCount("Christian Bale", 3)),castCounts);
+                });
+    }
+
+    @Test
+    void topCast_spellingsOfOneActor(){
+        movieInfoRepository.save(new MovieInfo(null, "The Prestige",
+                2006, List.of("christian bale ", "Hugh Jackman"), LocalDate.parse("2006-10-20"))).block();
+
+        webTestClient
+                .get()
+                .uri(STATS_URI +"/cast?limit=1")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfoCastCount.class)
+                .consumeWith(listEntityExchangeResult -> {
+                    var castCounts=listEntityExchangeResult.getResponseBody();
+                    assertNotNull(castCounts);
+                    assertEquals(1, castCounts.size());
+                    assertEquals(4, castCounts.get(0).count());
+                    //one of the raw spellings, not the normalized key
+                    assertTrue(List.of("Christian Bale", "christian bale ").contains(castCounts.get(0).cast()));
+                });
+    }
+}
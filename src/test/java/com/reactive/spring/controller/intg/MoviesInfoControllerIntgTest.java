@@ -1,6 +1,8 @@
 package com.reactive.spring.controller.intg;
 
 import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.domain.MovieInfoBatchItem;
+import com.reactive.spring.domain.MovieInfoPage;
 import com.reactive.spring.repository.MovieInfoRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -15,6 +18,7 @@ import reactor.test.StepVerifier;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -99,6 +103,77 @@ class MoviesInfoControllerIntgTest {
                 .hasSize(1);
     }
 
+    @Test
+    void getMovieInfoPage(){
+        var firstPage = webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI + "?limit=2")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(MovieInfoPage.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(firstPage);
+        assertEquals(2, firstPage.items().size());
+        assertNotNull(firstPage.next());
+
+        webTestClient
+                .get()
+                .uri(uriBuilder -> uriBuilder.path(MOVIE_INFO_URI)
+                        .queryParam("limit", 2)
+                        .queryParam("after", firstPage.next())
+                        .build())
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.items.length()").isEqualTo(1)
+                .jsonPath("$.next").doesNotExist();
+    }
+
+    @Test
+    void getMovieInfoPage_invalidCursor(){
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI + "?limit=2&after=not-a-cursor")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void getAllMovieInfos_range(){
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"?yearFrom=2006&yearTo=2012")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].name").isEqualTo("The Dark Knight")
+                .jsonPath("$[1].name").isEqualTo("Dark Knight Rises");
+
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"?releaseDateFrom=2005-01-01&releaseDateTo=2008-12-31&yearTo=2005")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].name").isEqualTo("Batman Begins");
+
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"?releaseDateFrom=2012-01-01&releaseDateTo=2005-01-01")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
     @Test
     void getMovieInfoById(){
         var movieInfoId="abc";
@@ -117,6 +192,187 @@ class MoviesInfoControllerIntgTest {
 //                });
     }
 
+    @Test
+    void getMovieInfoById_conditional(){
+        var added = webTestClient
+                .post()
+                .uri(MOVIE_INFO_URI)
+                .bodyValue(new MovieInfo(null, "Kali",
+                        2024, List.of("Amitab Bachan", "Prabhash"), LocalDate.parse("2024-06-24")))
+                .exchange()
+                .expectStatus()
+                .isCreated()
+                .expectBody(MovieInfo.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(added);
+
+        var eTag = webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"/{id}",added.getMovieInfoId())
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .exists("Last-Modified")
+                .returnResult(MovieInfo.class)
+                .getResponseHeaders()
+                .getETag();
+        assertNotNull(eTag);
+        assertTrue(eTag.startsWith("\"0-"));
+
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"/{id}",added.getMovieInfoId())
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+
+        //an update bumps the version, the old etag no longer matches
+        webTestClient
+                .patch()
+                .uri(MOVIE_INFO_URI +"/{id}",added.getMovieInfoId())
+                .bodyValue(Map.of("name", "Kalki"))
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"/{id}",added.getMovieInfoId())
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .value("ETag", updated -> assertTrue(updated.startsWith("\"1-")));
+    }
+
+    @Test
+    void getMovieInfoById_recreatedDocumentGetsNewETag(){
+        var eTag = webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"/{id}","abc")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(MovieInfo.class)
+                .getResponseHeaders()
+                .getETag();
+        assertNotNull(eTag);
+
+        //delete and re-create restarts the version at 0, the tag must still change
+        movieInfoRepository.deleteById("abc").block();
+        webTestClient
+                .post()
+                .uri(MOVIE_INFO_URI)
+                .bodyValue(new MovieInfo("abc", "Dark Knight Rises",
+                        2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")))
+                .exchange()
+                .expectStatus()
+                .isCreated();
+
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"/{id}","abc")
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+
+    @Test
+    void getAllMovieInfos_conditional(){
+        //a plain GET carries the validators, HEAD sends the same ones without the listing
+        var eTag = webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .exists("Last-Modified")
+                .returnResult(MovieInfo.class)
+                .getResponseHeaders()
+                .getETag();
+        assertNotNull(eTag);
+        assertTrue(eTag.startsWith("W/\"3-"));
+
+        webTestClient
+                .head()
+                .uri(MOVIE_INFO_URI)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .valueEquals("ETag", eTag);
+
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+
+        movieInfoRepository.deleteById("abc").block();
+
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+
+    @Test
+    void getMovieInfoProjections(){
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"?year=2012&fields=name")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].movieInfoId").isEqualTo("abc")
+                .jsonPath("$[0].name").isEqualTo("Dark Knight Rises")
+                .jsonPath("$[0].year").doesNotExist()
+                .jsonPath("$[0].cast").doesNotExist();
+    }
+
+    @Test
+    void getMovieInfoProjections_unknownField(){
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"?fields=name,budget")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void getMovieInfoBatch(){
+        webTestClient
+                .post()
+                .uri(MOVIE_INFO_URI +"/batch")
+                .bodyValue(List.of("abc","unknown","abc"))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfoBatchItem.class)
+                .consumeWith(listEntityExchangeResult -> {
+                    var items=listEntityExchangeResult.getResponseBody();
+                    assertNotNull(items);
+                    assertEquals(2,items.size());
+                    assertEquals("Dark Knight Rises",items.get(0).movieInfo().getName());
+                    assertEquals("unknown",items.get(1).movieInfoId());
+                    assertFalse(items.get(1).found());
+                });
+    }
+
     @Test
     void updateMovieInfo() {
         var movieInfoId="abc";
@@ -163,6 +419,40 @@ class MoviesInfoControllerIntgTest {
                 });*/
     }
 
+    @Test
+    void patchMovieInfo() {
+        var movieInfoId="abc";
+
+        webTestClient
+                .patch()
+                .uri(MOVIE_INFO_URI +"/{id}",movieInfoId)
+                .bodyValue(Map.of("year", 2013))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(MovieInfo.class)
+                .consumeWith(movieInfoEntityExchangeResult -> {
+                    var patchedMovieInfo=movieInfoEntityExchangeResult.getResponseBody();
+                    assert patchedMovieInfo !=null;
+                    assertEquals("Dark Knight Rises",patchedMovieInfo.getName());
+                    assertEquals(2013,patchedMovieInfo.getYear());
+                    assertEquals(1L,patchedMovieInfo.getVersion());
+                });
+    }
+
+    @Test
+    void patchMovieInfo_versionConflict() {
+        var movieInfoId="abc";
+
+        webTestClient
+                .patch()
+                .uri(MOVIE_INFO_URI +"/{id}",movieInfoId)
+                .bodyValue(Map.of("year", 2013, "version", 42))
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.CONFLICT);
+    }
+
     @Test
     void  findByYear(){
 
@@ -1,24 +1,41 @@
 package com.reactive.spring.controller.junit;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.reactive.spring.config.MovieInfoCodecConfig;
 import com.reactive.spring.controller.MoviesInfoController;
+import com.reactive.spring.domain.BulkBatchResult;
 import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.domain.MovieInfoChangeEvent;
+import com.reactive.spring.domain.MovieInfoProjection;
+import com.reactive.spring.domain.MovieInfoValidators;
 import com.reactive.spring.services.MovieInfoServices;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.io.IOException;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest(controllers = MoviesInfoController.class)
@@ -44,16 +61,138 @@ public class MoviesInfoControllerUnitTest {
                         2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")));
 
         when(movieInfoServices.getAllMovieInfos()).thenReturn(Flux.fromIterable(movieinfos));
+        when(movieInfoServices.getMovieInfoListValidators(null,null))
+                .thenReturn(Mono.just(new MovieInfoValidators(3, Instant.parse("2024-06-24T10:15:30Z"))));
         webTestClient
                 .get()
                 .uri(MOVIE_INFO_URI)
                 .exchange()
                 .expectStatus()
                 .is2xxSuccessful()
+                //an unconditional GET carries the validators, a polling client gets a 304 next time
+                .expectHeader()
+                .valueEquals("ETag", "W/\"3-1719224130000\"")
+                .expectHeader()
+                .valueEquals("Last-Modified", "Mon, 24 Jun 2024 10:15:30 GMT")
                 .expectBodyList(MovieInfo.class)
                 .hasSize(3);
     }
 
+    @Test
+    void getAllMoviesInfo_ndjson(){
+        var movieinfos = List.of(new MovieInfo( null, "Batman Begins",
+                        2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")),
+                new MovieInfo("abc", "Dark Knight Rises",
+                        2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")));
+
+        when(movieInfoServices.getAllMovieInfos()).thenReturn(Flux.fromIterable(movieinfos));
+        when(movieInfoServices.getMovieInfoListValidators(null,null))
+                .thenReturn(Mono.just(new MovieInfoValidators(2, Instant.parse("2024-06-24T10:15:30Z"))));
+        var movieInfoFlux = webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(MovieInfo.class)
+                .getResponseBody();
+
+        StepVerifier.create(movieInfoFlux)
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void getAllMoviesInfo_streamSmile() throws IOException {
+        var movieinfos = List.of(new MovieInfo( null, "Batman Begins",
+                        2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")),
+                new MovieInfo("abc", "Dark Knight Rises",
+                        2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")));
+        when(movieInfoServices.getAllMovieInfos()).thenReturn(Flux.fromIterable(movieinfos));
+        when(movieInfoServices.getMovieInfoListValidators(null,null))
+                .thenReturn(Mono.just(new MovieInfoValidators(2, Instant.parse("2024-06-24T10:15:30Z"))));
+        var mediaType = MediaType.parseMediaType(MovieInfoCodecConfig.APPLICATION_STREAM_SMILE_VALUE);
+
+        var body = webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI)
+                .accept(mediaType)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .contentTypeCompatibleWith(mediaType)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        //one smile value per MovieInfo, no enclosing array
+        var mapper = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+        List<MovieInfo> decoded = mapper.readerFor(MovieInfo.class).<MovieInfo>readValues(body).readAll();
+        assertEquals(movieinfos, decoded);
+    }
+
+    @Test
+    void getAllMoviesInfo_collectedBinaryNotAcceptable(){
+        //smile and cbor would hold the whole listing in memory before the first byte
+        //no listing mapping produces them, spring reports the page mapping's missing limit
+        for (var mediaType : List.of(MovieInfoCodecConfig.APPLICATION_CBOR_VALUE, MovieInfoCodecConfig.APPLICATION_SMILE_VALUE)) {
+            webTestClient
+                    .get()
+                    .uri(MOVIE_INFO_URI)
+                    .accept(MediaType.parseMediaType(mediaType))
+                    .exchange()
+                    .expectStatus()
+                    .is4xxClientError();
+        }
+
+        verify(movieInfoServices, never()).getAllMovieInfos();
+    }
+
+    @Test
+    void getAllMoviesInfo_range(){
+        when(movieInfoServices.getMovieInfoByRange(1990,1999,null,LocalDate.parse("1999-06-30"))).thenReturn(Flux.just(
+                new MovieInfo("1", "Batman Forever", 1995, List.of("Val Kilmer"), LocalDate.parse("1995-06-16")),
+                new MovieInfo("2", "Batman & Robin", 1997, List.of("George Clooney"), LocalDate.parse("1997-06-20"))));
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"?yearFrom=1990&yearTo=1999&releaseDateTo=1999-06-30")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void getAllMoviesInfo_rangeWithYear(){
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"?year=1995&yearFrom=1990")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void getAllMoviesInfo_rangeWithPageOrFields(){
+        for (var query : List.of("?yearFrom=1990&limit=10", "?releaseDateFrom=1990-01-01&fields=name",
+                "?cast=Christian Bale&limit=10", "?limit=10&fields=name")) {
+            webTestClient
+                    .get()
+                    .uri(MOVIE_INFO_URI + query)
+                    .exchange()
+                    .expectStatus()
+                    .isBadRequest();
+        }
+
+        verify(movieInfoServices, never()).getMovieInfoPage(any(), anyInt(), any());
+        verify(movieInfoServices, never()).getMovieInfoProjections(any(), any(), any());
+    }
+
     @Test
     void getMovieInfoById(){
         var movieInfo= new MovieInfo(null, "Dark Knight Rises",
@@ -74,6 +213,135 @@ public class MoviesInfoControllerUnitTest {
               });
     }
 
+    @Test
+    void getMovieInfoById_binary() throws IOException {
+        var movieInfo = new MovieInfo("abc", "Kali",
+                2024, List.of("Amitab Bachan", "Depika Padkon"), LocalDate.parse("2024-06-24"));
+        when(movieInfoServices.getMovieInfoById("abc")).thenReturn(Mono.just(movieInfo));
+
+        for (var factory : List.of(new CBORFactory(), new SmileFactory())) {
+            var mediaType = factory instanceof CBORFactory
+                    ? MediaType.parseMediaType(MovieInfoCodecConfig.APPLICATION_CBOR_VALUE)
+                    : MediaType.parseMediaType(MovieInfoCodecConfig.APPLICATION_SMILE_VALUE);
+            var body = webTestClient
+                    .get()
+                    .uri(MOVIE_INFO_URI +"/{id}","abc")
+                    .accept(mediaType)
+                    .exchange()
+                    .expectStatus()
+                    .is2xxSuccessful()
+                    .expectHeader()
+                    .contentTypeCompatibleWith(mediaType)
+                    .expectBody(byte[].class)
+                    .returnResult()
+                    .getResponseBody();
+
+            var mapper = Jackson2ObjectMapperBuilder.json().factory(factory).build();
+            assertEquals(movieInfo, mapper.readValue(body, MovieInfo.class));
+        }
+    }
+
+    @Test
+    void getMovieInfoById_notModified(){
+        var validators = new MovieInfo("abc", null, null, null, null, 3L, Instant.parse("2024-06-24T10:15:30Z"));
+        when(movieInfoServices.getMovieInfoValidators("abc")).thenReturn(Mono.just(validators));
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"/{id}","abc")
+                .ifNoneMatch("\"3-1719224130000\"")
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectHeader()
+                .valueEquals("ETag", "\"3-1719224130000\"")
+                .expectBody()
+                .isEmpty();
+
+        verify(movieInfoServices, never()).getMovieInfoById(any());
+    }
+
+    @Test
+    void headMovieInfos_validatorsWithoutListing(){
+        var validators = new MovieInfoValidators(3, Instant.parse("2024-06-24T10:15:30Z"));
+        when(movieInfoServices.getMovieInfoListValidators(null,"Christian Bale")).thenReturn(Mono.just(validators));
+        webTestClient
+                .head()
+                .uri(MOVIE_INFO_URI +"?cast=Christian Bale")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .valueEquals("ETag", "W/\"3-1719224130000\"")
+                .expectBody()
+                .isEmpty();
+
+        verify(movieInfoServices, never()).getMovieInfoByCast(any());
+    }
+
+    @Test
+    void getAllMoviesInfo_notModified(){
+        var validators = new MovieInfoValidators(3, Instant.parse("2024-06-24T10:15:30Z"));
+        when(movieInfoServices.getMovieInfoListValidators(2024,null)).thenReturn(Mono.just(validators));
+        var eTag = "W/\"3-" + validators.lastModified().toEpochMilli() + "\"";
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"?year=2024")
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectHeader()
+                .valueEquals("ETag", eTag);
+
+        verify(movieInfoServices, never()).getMovieInfoByYear(any());
+    }
+
+    @Test
+    void getMovieInfoChanges(){
+        var movieInfo=new MovieInfo("abc", "Kali",
+                2024, List.of("Amitab Bachan", "Depika Padkon"), LocalDate.parse("2024-06-24"));
+        when(movieInfoServices.getMovieInfoChanges(2024)).thenReturn(Flux.just(
+                new MovieInfoChangeEvent(MovieInfoChangeEvent.SAVED, "abc", movieInfo),
+                MovieInfoChangeEvent.HEARTBEAT_EVENT,
+                new MovieInfoChangeEvent(MovieInfoChangeEvent.DELETED, "abc", null)));
+
+        var body = webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"/changes?year=2024")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(body);
+        assertTrue(body.contains("event:saved"));
+        assertTrue(body.contains(":heartbeat"));
+        assertTrue(body.contains("event:deleted"));
+    }
+
+    @Test
+    void getMovieInfoProjectionById(){
+        var movieInfo=new MovieInfo("abc", "Kali",
+                2024, List.of("Amitab Bachan", "Depika Padkon"), LocalDate.parse("2024-06-24"));
+        when(movieInfoServices.getMovieInfoProjectionById("abc","name,year"))
+                .thenReturn(Mono.just(MovieInfoProjection.of(movieInfo, Set.of("name","year"))));
+
+        webTestClient
+                .get()
+                .uri(MOVIE_INFO_URI +"/{id}?fields=name,year","abc")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.movieInfoId").isEqualTo("abc")
+                .jsonPath("$.name").isEqualTo("Kali")
+                .jsonPath("$.cast").doesNotExist()
+                .jsonPath("$.release_date").doesNotExist();
+    }
+
     @Test
     void addMovieInfo(){
 
@@ -129,6 +397,37 @@ public class MoviesInfoControllerUnitTest {
                 })*/;
     }
 
+    @Test
+    void bulkAddMovieInfos(){
+        var ndjson = """
+                {"name": "Batman Begins", "year":2005,"cast":["Christian Bale", "Michael Cane"],"release_date": "2005-06-15"}
+                {"name": "The Dark Knight", "year":2008,"cast":["Christian Bale", "HeathLedger"],"release_date": "2008-07-18"}
+                """;
+        when(movieInfoServices.bulkAddMovieInfos(any())).thenAnswer(invocation -> {
+            Flux<MovieInfo> movieInfos = invocation.getArgument(0);
+            return movieInfos.collectList()
+                    .map(list -> new BulkBatchResult(0, list.size(), list.size(), 0, List.of()))
+                    .flux();
+        });
+
+        webTestClient
+                .post()
+                .uri(MOVIE_INFO_URI + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(ndjson)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(BulkBatchResult.class)
+                .consumeWith(listEntityExchangeResult -> {
+                    var results=listEntityExchangeResult.getResponseBody();
+                    assertNotNull(results);
+                    assertEquals(1,results.size());
+                    assertEquals(2,results.get(0).inserted());
+                });
+    }
+
     @Test
     void updateMovieInfo() {
         var movieInfoId="abc";
@@ -155,6 +454,22 @@ public class MoviesInfoControllerUnitTest {
                 });
     }
 
+    @Test
+    void patchMovieInfo_validation() {
+        var movieInfoId="abc";
+
+        webTestClient
+                .patch()
+                .uri(MOVIE_INFO_URI +"/{id}",movieInfoId)
+                .bodyValue("{\"year\": -1}")
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("movieInfo.year must be positive number");
+    }
+
     @Test
     void deleteMovieInfo(){
         var movieInfoId="abc";
@@ -0,0 +1,79 @@
+package com.reactive.spring.index;
+
+import com.reactive.spring.domain.MovieInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CastIndexTest {
+
+    CastIndex castIndex;
+
+    @BeforeEach
+    void setUp() {
+        castIndex = new CastIndex();
+        castIndex.onSaved(new MovieInfo("1", "Batman Begins",
+                2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")));
+        castIndex.onSaved(new MovieInfo("2", "The Dark Knight",
+                2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")));
+        castIndex.onSaved(new MovieInfo("abc", "Dark Knight Rises",
+                2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")));
+        castIndex.onLoaded();
+    }
+
+    @Test
+    void lookupIsNormalized() {
+        assertEquals(List.of("1", "2", "abc"), castIndex.lookup("  christian   BALE "));
+        assertEquals(List.of("abc"), castIndex.lookup("Tom Hardy"));
+        assertEquals(List.of(), castIndex.lookup("Liam Neeson"));
+    }
+
+    @Test
+    void castKeysMatchLikeTheIndex() {
+        //what mongo answers before the index has loaded must be what the index answers after
+        var movieInfo = new MovieInfo("def", "Kali", 2024, List.of(" Christian  Bale", "christian bale", "Tom Hardy"), null);
+        castIndex.onSaved(movieInfo);
+
+        var castKeys = CastIndex.normalize(movieInfo.getCast());
+
+        assertEquals(List.of("christian bale", "tom hardy"), castKeys);
+        for (var castName : List.of("Christian Bale", "  christian   BALE ", "TOM HARDY", "Liam Neeson")) {
+            assertEquals(castIndex.lookup(castName).contains("def"), castKeys.contains(CastIndex.normalize(castName)), castName);
+        }
+        assertNull(CastIndex.normalize((List<String>) null));
+    }
+
+    @Test
+    void updateMovesPostings() {
+        castIndex.onSaved(new MovieInfo("1", "Batman Begins",
+                2005, List.of("Michael Cane", "Liam Neeson"), LocalDate.parse("2005-06-15")));
+
+        assertEquals(List.of("2", "abc"), castIndex.lookup("Christian Bale"));
+        assertEquals(List.of("1"), castIndex.lookup("Liam Neeson"));
+    }
+
+    @Test
+    void deleteRemovesPostingsAndReusesDocument() {
+        castIndex.onDeleted("2");
+        assertEquals(List.of("1", "abc"), castIndex.lookup("Christian Bale"));
+        assertEquals(List.of(), castIndex.lookup("HeathLedger"));
+
+        castIndex.onSaved(new MovieInfo("def", "Kali",
+                2024, List.of("Christian Bale"), LocalDate.parse("2024-06-24")));
+        assertEquals(3, castIndex.lookup("Christian Bale").size());
+        assertEquals(3, castIndex.stats().movies());
+    }
+
+    @Test
+    void clearedIndexIsNotLoaded() {
+        castIndex.onCleared();
+
+        assertFalse(castIndex.isLoaded());
+        assertEquals(List.of(), castIndex.lookup("Christian Bale"));
+        assertEquals(0, castIndex.stats().castNames());
+    }
+}
@@ -0,0 +1,91 @@
+package com.reactive.spring.index;
+
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.domain.MovieInfoSuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TitleSuggestIndexTest {
+
+    TitleSuggestIndex titleSuggestIndex;
+
+    @BeforeEach
+    void setUp() {
+        titleSuggestIndex = new TitleSuggestIndex();
+        titleSuggestIndex.onSaved(new MovieInfo("1", "Batman Begins",
+                2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")));
+        titleSuggestIndex.onSaved(new MovieInfo("2", "The Dark Knight",
+                2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")));
+        titleSuggestIndex.onSaved(new MovieInfo("abc", "Dark Knight Rises",
+                2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")));
+        titleSuggestIndex.onSaved(new MovieInfo("def", "Dark City",
+                1998, List.of("Rufus Sewell"), LocalDate.parse("1998-02-27")));
+        titleSuggestIndex.onLoaded();
+    }
+
+    @Test
+    void suggestIsCaseInsensitiveAndAlphabetical() {
+        assertEquals(List.of(new MovieInfoSuggestion("def", "Dark City"),
+                        new MovieInfoSuggestion("abc", "Dark Knight Rises")),
+                titleSuggestIndex.suggest("dARK", 10));
+        assertEquals(List.of(new MovieInfoSuggestion("def", "Dark City")),
+                titleSuggestIndex.suggest("dark", 1));
+        assertEquals(List.of(), titleSuggestIndex.suggest("Kali", 10));
+    }
+
+    @Test
+    void nonPositiveLimitSuggestsNothing() {
+        assertEquals(List.of(), titleSuggestIndex.suggest("Dark", 0));
+        assertEquals(List.of(), titleSuggestIndex.suggest("Dark", -1));
+    }
+
+    @Test
+    void renameAndDeleteAreApplied() {
+        titleSuggestIndex.onSaved(new MovieInfo("def", "Kali",
+                2024, List.of("Amitab Bachan"), LocalDate.parse("2024-06-24")));
+        titleSuggestIndex.onDeleted("abc");
+
+        assertEquals(List.of(), titleSuggestIndex.suggest("Dark", 10));
+        assertEquals(List.of(new MovieInfoSuggestion("def", "Kali")), titleSuggestIndex.suggest("k", 10));
+    }
+
+    @Test
+    void sameTitleTwice() {
+        titleSuggestIndex.onSaved(new MovieInfo("3", "Batman Begins",
+                2025, List.of(), LocalDate.parse("2025-06-15")));
+
+        assertEquals(2, titleSuggestIndex.suggest("batman begins", 10).size());
+    }
+
+    @Test
+    void renamedAndDeletedTitlesArePruned() {
+        //root, "batman begins", "the dark knight", then "dark " shared by "knight rises" and "city"
+        assertEquals(1 + 13 + 15 + 5 + 12 + 4, titleSuggestIndex.nodeCount());
+
+        //the "city" branch goes, "kali" reuses its nodes, however often the title changes
+        for (int i = 0; i < 100; i++) {
+            titleSuggestIndex.onSaved(new MovieInfo("def", i % 2 == 0 ? "Kali" : "Dark City",
+                    2024, List.of("Amitab Bachan"), LocalDate.parse("2024-06-24")));
+        }
+        titleSuggestIndex.onSaved(new MovieInfo("def", "Kali",
+                2024, List.of("Amitab Bachan"), LocalDate.parse("2024-06-24")));
+        assertEquals(1 + 13 + 15 + 5 + 12 + 4, titleSuggestIndex.nodeCount());
+        assertEquals(List.of(new MovieInfoSuggestion("abc", "Dark Knight Rises")), titleSuggestIndex.suggest("dark", 10));
+        assertEquals(List.of(new MovieInfoSuggestion("def", "Kali")), titleSuggestIndex.suggest("ka", 10));
+
+        //"dark knight rises" was the last title under "dark", the whole branch goes
+        titleSuggestIndex.onDeleted("abc");
+        assertEquals(1 + 13 + 15 + 4, titleSuggestIndex.nodeCount());
+        assertEquals(List.of(), titleSuggestIndex.suggest("d", 10));
+
+        for (var movieInfoId : List.of("1", "2", "def")) {
+            titleSuggestIndex.onDeleted(movieInfoId);
+        }
+        assertEquals(1, titleSuggestIndex.nodeCount());
+    }
+}
@@ -0,0 +1,113 @@
+package com.reactive.spring.instrumentation;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieInfoMetricsTest {
+
+    SimpleMeterRegistry meterRegistry;
+
+    MovieInfoMetrics movieInfoMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        movieInfoMetrics = new MovieInfoMetrics(meterRegistry);
+    }
+
+    long calls(String operation, String outcome) {
+        return meterRegistry.get("movieinfo.operation").tag("operation", operation).tag("outcome", outcome).timer().count();
+    }
+
+    @Test
+    void metersDashboardsAndAlertsDependOn() {
+        movieInfoMetrics.operation("getMovieInfoById");
+
+        //names and tags are what the dashboards and the prometheus endpoint expose, renaming one breaks them
+        var meters = meterRegistry.getMeters().stream()
+                .map(meter -> meter.getId().getName() + meter.getId().getTags().stream()
+                        .map(Tag::getValue)
+                        .collect(Collectors.toList()))
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(
+                "movieinfo.operation[getMovieInfoById, success]",
+                "movieinfo.operation[getMovieInfoById, error]",
+                "movieinfo.operation[getMovieInfoById, cancelled]",
+                "movieinfo.operation.inflight[getMovieInfoById]",
+                "movieinfo.operation.elements[getMovieInfoById]",
+                "movieinfo.operation.coalesced[getMovieInfoById]"), meters);
+        assertEquals(Meter.Type.GAUGE, meterRegistry.get("movieinfo.operation.inflight").meter().getId().getType());
+    }
+
+    @Test
+    void latencyIsPublishedAsHistogramBuckets() {
+        //the simple registry drops buckets, prometheus computes the latency percentiles from them
+        var prometheusRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        var meters = new MovieInfoMetrics(prometheusRegistry).operation("getMovieInfoById");
+        meters.inFlight.incrementAndGet();
+        meters.record(SignalType.ON_COMPLETE, Duration.ofMillis(5).toNanos(), 1, false);
+
+        var scrape = prometheusRegistry.scrape();
+        assertTrue(scrape.contains("movieinfo_operation_seconds_bucket{"), scrape);
+        assertTrue(scrape.contains("operation=\"getMovieInfoById\",outcome=\"success\""), scrape);
+    }
+
+    @Test
+    void metersAreBuiltOncePerOperation() {
+        assertSame(movieInfoMetrics.operation("getMovieInfoById"), movieInfoMetrics.operation("getMovieInfoById"));
+        assertNotSame(movieInfoMetrics.operation("getMovieInfoById"), movieInfoMetrics.operation("getAllMovieInfos"));
+        assertEquals(2, meterRegistry.find("movieinfo.operation.inflight").gauges().size());
+    }
+
+    @Test
+    void callsAreRecordedByOutcome() {
+        var meters = movieInfoMetrics.operation("getAllMovieInfos");
+        for (var signal : List.of(SignalType.ON_COMPLETE, SignalType.ON_COMPLETE, SignalType.ON_ERROR, SignalType.CANCEL)) {
+            meters.inFlight.incrementAndGet();
+            meters.record(signal, Duration.ofMillis(5).toNanos(), 3, true);
+        }
+
+        assertEquals(2, calls("getAllMovieInfos", "success"));
+        assertEquals(1, calls("getAllMovieInfos", "error"));
+        assertEquals(1, calls("getAllMovieInfos", "cancelled"));
+        assertEquals(0, meterRegistry.get("movieinfo.operation.inflight").gauge().value());
+        var elements = meterRegistry.get("movieinfo.operation.elements").summary();
+        assertEquals(4, elements.count());
+        assertEquals(12, elements.totalAmount());
+    }
+
+    @Test
+    void monoOperationsRecordNoElements() {
+        var meters = movieInfoMetrics.operation("getMovieInfoById");
+        meters.inFlight.incrementAndGet();
+
+        assertEquals(1, meterRegistry.get("movieinfo.operation.inflight").gauge().value());
+        meters.record(SignalType.ON_COMPLETE, Duration.ofMillis(5).toNanos(), 1, false);
+
+        assertEquals(1, calls("getMovieInfoById", "success"));
+        assertEquals(0, meterRegistry.get("movieinfo.operation.elements").summary().count());
+    }
+
+    @Test
+    void coalescedCallsAreCountedPerOperation() {
+        movieInfoMetrics.coalesced("getMovieInfoById");
+        movieInfoMetrics.coalesced("getMovieInfoById");
+        movieInfoMetrics.coalesced("getMovieInfoValidators");
+
+        assertEquals(2, meterRegistry.get("movieinfo.operation.coalesced").tag("operation", "getMovieInfoById").counter().count());
+        assertEquals(1, meterRegistry.get("movieinfo.operation.coalesced").tag("operation", "getMovieInfoValidators").counter().count());
+    }
+}
@@ -0,0 +1,146 @@
+package com.reactive.spring.instrumentation;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.reactive.spring.config.MovieInfoTracingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieInfoTracerTest {
+
+    MovieInfoTracingProperties properties;
+
+    SimpleMeterRegistry meterRegistry;
+
+    ListAppender<ILoggingEvent> traces;
+
+    Logger logger = (Logger) LoggerFactory.getLogger(MovieInfoTracer.class);
+
+    @BeforeEach
+    void setUp() {
+        properties = new MovieInfoTracingProperties();
+        properties.setDefaultSampleRate(0.0);
+        meterRegistry = new SimpleMeterRegistry();
+        traces = new ListAppender<>();
+        traces.start();
+        logger.addAppender(traces);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(traces);
+    }
+
+    //built after the test set its properties, the slow threshold is read once
+    MovieInfoTracer tracer() {
+        return new MovieInfoTracer(properties, new MovieInfoMetrics(meterRegistry));
+    }
+
+    static Map<String, Object> keyValues(ILoggingEvent event) {
+        return event.getKeyValuePairs().stream()
+                .collect(Collectors.toMap(pair -> pair.key, pair -> pair.value));
+    }
+
+    //slow on the calling thread, the trace is finished by the time block returns
+    static Mono<String> slow() {
+        return Mono.fromCallable(() -> {
+            Thread.sleep(100);
+            return "movie";
+        });
+    }
+
+    double calls(String operation) {
+        return meterRegistry.find("movieinfo.operation").tag("operation", operation).timers().stream()
+                .mapToLong(timer -> timer.count())
+                .sum();
+    }
+
+    @Test
+    void sampledCallIsOneStructuredLine() {
+        properties.setSampleRates(Map.of("getAllMovieInfos", 1.0));
+
+        tracer().trace("getAllMovieInfos", 2005, Flux.just("a", "b", "c")).blockLast();
+
+        assertEquals(1, traces.list.size());
+        var trace = traces.list.get(0);
+        assertEquals(Level.INFO, trace.getLevel());
+        assertEquals("movieinfo call", trace.getMessage());
+        var keyValues = keyValues(trace);
+        assertEquals("getAllMovieInfos", keyValues.get("operation"));
+        assertEquals(2005, keyValues.get("id"));
+        assertEquals(3L, keyValues.get("elements"));
+        assertEquals(SignalType.ON_COMPLETE, keyValues.get("signal"));
+    }
+
+    @Test
+    void unsampledCallsAreOnlyCounted() {
+        var tracer = tracer();
+
+        for (int i = 0; i < 20; i++) {
+            tracer.trace("getMovieInfoById", "abc", Mono.just("movie")).block();
+        }
+
+        assertTrue(traces.list.isEmpty());
+        assertEquals(20, calls("getMovieInfoById"));
+    }
+
+    @Test
+    void sampleRateIsAShareOfCalls() {
+        properties.setSampleRates(Map.of("getMovieInfoById", 0.5));
+        var tracer = tracer();
+
+        for (int i = 0; i < 2000; i++) {
+            tracer.trace("getMovieInfoById", "abc", Mono.just("movie")).block();
+        }
+
+        //about 1000, the bounds are several standard deviations away
+        assertTrue(traces.list.size() > 800 && traces.list.size() < 1200, "traced " + traces.list.size());
+    }
+
+    @Test
+    void slowCallsAreAlwaysTraced() {
+        properties.setSlowThreshold(Duration.ofMillis(50));
+
+        tracer().trace("getMovieInfoById", "abc", slow()).block();
+
+        assertEquals(1, traces.list.size());
+        assertEquals(Level.WARN, traces.list.get(0).getLevel());
+        assertEquals("slow movieinfo call", traces.list.get(0).getMessage());
+    }
+
+    @Test
+    void disabledTracingStillRecordsMetrics() {
+        properties.setEnabled(false);
+        properties.setDefaultSampleRate(1.0);
+        properties.setSlowThreshold(Duration.ofMillis(50));
+
+        tracer().trace("getMovieInfoById", "abc", slow()).block();
+
+        assertTrue(traces.list.isEmpty());
+        assertEquals(1, calls("getMovieInfoById"));
+    }
+
+    @Test
+    void errorsAreTracedWithTheirSignal() {
+        properties.setDefaultSampleRate(1.0);
+
+        assertThrows(IllegalStateException.class,
+                () -> tracer().trace("updateMovieInfo", "abc", Mono.error(new IllegalStateException())).block());
+
+        assertEquals(SignalType.ON_ERROR, keyValues(traces.list.get(0)).get("signal"));
+    }
+}
@@ -0,0 +1,42 @@
+package com.reactive.spring.repository;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieInfoAggregationRepositoryTest {
+
+    @Test
+    void releaseMonthsAreReadInTheZoneDatesAreStoredIn() {
+        var pipeline = MovieInfoAggregationRepository.releaseMonthAggregation(2005, ZoneId.of("Asia/Kolkata"))
+                .toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        var month = pipeline.stream()
+                .map(stage -> stage.get("$project", Document.class))
+                .filter(project -> project != null && project.containsKey("month"))
+                .findFirst()
+                .orElseThrow()
+                .get("month", Document.class)
+                .get("$dateToString", Document.class);
+        assertEquals("%Y-%m", month.get("format"));
+        assertEquals("Asia/Kolkata", month.get("timezone"));
+    }
+
+    @Test
+    void topCastIsTalliedOnCastKeys() {
+        var pipeline = MovieInfoAggregationRepository.topCastAggregation(10)
+                .toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        assertEquals("$castKeys", pipeline.get(1).get("$unwind"));
+        var group = pipeline.get(3).get("$group", Document.class);
+        assertEquals("$castKeys", group.get("_id"));
+        assertEquals(new Document("$sum", 1), group.get("count"));
+        assertEquals(new Document("$first", new Document("$ifNull", List.of("$name", "$castKeys"))), group.get("cast"));
+        assertEquals(new Document("$limit", 10L), pipeline.get(5));
+    }
+}
@@ -1,11 +1,13 @@
 package com.reactive.spring.repository;
 
 import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.index.CastIndex;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 import reactor.test.StepVerifier;
 
@@ -16,6 +18,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @DataMongoTest
 @ActiveProfiles("test")
+@Import(MovieInfoCastKeysCallback.class)
 class MovieInfoRepositoryIntgTest {
 
     @Autowired
@@ -89,6 +92,23 @@ class MovieInfoRepositoryIntgTest {
                 .verifyComplete();
     }
 
+    @Test
+    void findByCastKeysMatchesLikeTheCastIndex(){
+        var castIndex = new CastIndex();
+        movieInfoRepository.findAll().doOnNext(castIndex::onSaved).blockLast();
+
+        for (var castName : List.of("Christian Bale", "  christian   BALE ", "tom hardy", "Liam Neeson")) {
+            var fromMongo = movieInfoRepository.findByCastKeys(CastIndex.normalize(castName))
+                    .map(MovieInfo::getMovieInfoId)
+                    .collectList()
+                    .block();
+            assertEquals(castIndex.lookup(castName).stream().sorted().toList(), fromMongo.stream().sorted().toList(), castName);
+
+            var validators = movieInfoRepository.findValidators(null, castName).block();
+            assertEquals(fromMongo.size(), validators.count(), castName);
+        }
+    }
+
     @Test
     void deleteMovieInfo(){
         movieInfoRepository.deleteById("abc").block();
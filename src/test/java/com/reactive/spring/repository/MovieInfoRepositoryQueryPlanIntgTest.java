@@ -0,0 +1,219 @@
+package com.reactive.spring.repository;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.reactive.spring.domain.MovieInfo;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every query method declared on MovieInfoRepository, captures the find, aggregate (count) and findAndModify
+ * commands it sends and explains them. A COLLSCAN in any winning plan means a query is missing its index,
+ * a SORT stage means its sort does not follow the index and documents are buffered before the first one is returned.
+ * Flux queries are run with sample arguments, Mono queries are listed with arguments for each filter they take.
+ */
+@DataMongoTest
+@ActiveProfiles("test")
+@Import({MovieInfoIndexInitializer.class, MovieInfoCastKeysCallback.class, MovieInfoRepositoryQueryPlanIntgTest.CommandCaptureConfig.class})
+class MovieInfoRepositoryQueryPlanIntgTest {
+
+    static final Set<String> EXPLAINED_COMMANDS = Set.of("find", "aggregate", "findAndModify");
+
+    static final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+
+    @TestConfiguration
+    static class CommandCaptureConfig {
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer commandCapture() {
+            CommandListener listener = new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    if (EXPLAINED_COMMANDS.contains(event.getCommandName())) {
+                        commands.add(event.getCommand().clone());
+                    }
+                }
+            };
+            return builder -> builder.addCommandListener(listener);
+        }
+    }
+
+    @Autowired
+    MovieInfoRepository movieInfoRepository;
+
+    @Autowired
+    ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    MovieInfoIndexInitializer movieInfoIndexInitializer;
+
+    @BeforeEach
+    void setUp() {
+        movieInfoIndexInitializer.ensureIndexes().block();
+        var movieinfos = List.of(new MovieInfo( null, "Batman Begins",
+                        2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")),
+                new MovieInfo(null, "The Dark Knight",
+                        2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")),
+                new MovieInfo("abc", "Dark Knight Rises",
+                        2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")));
+
+        movieInfoRepository.saveAll(movieinfos)
+                .blockLast();
+        commands.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        movieInfoRepository.deleteAll().block();
+    }
+
+    @Test
+    void queryMethodsUseAnIndex() throws Exception {
+        var queryMethods = queryMethods()
+                .filter(method -> method.getReturnType() == Flux.class)
+                .toList();
+        assertFalse(queryMethods.isEmpty());
+
+        for (Method method : queryMethods) {
+            commands.clear();
+            var result = method.invoke(movieInfoRepository, sampleArguments(method));
+            Flux.from((Publisher<?>) result).blockLast();
+
+            assertUsesAnIndex(method.getName());
+        }
+    }
+
+    @Test
+    void monoQueryMethodsUseAnIndex() {
+        //every filter a Mono query can take, the unfiltered findValidators is answered from collection metadata
+        var monoQueries = new LinkedHashMap<String, List<Supplier<Mono<?>>>>();
+        monoQueries.put("findProjectedById", List.of(
+                () -> movieInfoRepository.findProjectedById("abc", Set.of("version", "lastModified"))));
+        monoQueries.put("findValidators", List.of(
+                () -> movieInfoRepository.findValidators(2005, null),
+                () -> movieInfoRepository.findValidators(null, "Christian Bale")));
+        monoQueries.put("findValidatorsByIds", List.of(
+                () -> movieInfoRepository.findValidatorsByIds(List.of("abc"))));
+        monoQueries.put("findAndUpdate", List.of(
+                () -> movieInfoRepository.findAndUpdate("abc", new Update().set("name", "Dark Knight Rises"), null),
+                () -> movieInfoRepository.findAndUpdate("abc", new Update().set("name", "Dark Knight Rises"), 1L)));
+
+        //a new Mono query has to be listed here, it is never skipped silently
+        var declared = queryMethods()
+                .filter(method -> method.getReturnType() == Mono.class)
+                .map(Method::getName)
+                .collect(Collectors.toSet());
+        assertEquals(declared, monoQueries.keySet());
+
+        monoQueries.forEach((name, queries) -> {
+            for (Supplier<Mono<?>> query : queries) {
+                commands.clear();
+                query.get().block();
+
+                assertUsesAnIndex(name);
+            }
+        });
+    }
+
+    private static Stream<Method> queryMethods() {
+        return Stream.of(MovieInfoRepository.class, MovieInfoRepositoryCustom.class)
+                .flatMap(type -> Arrays.stream(type.getDeclaredMethods()))
+                .filter(method -> !method.isDefault() && !method.isSynthetic());
+    }
+
+    private void assertUsesAnIndex(String name) {
+        assertFalse(commands.isEmpty(), name + " did not send a query");
+        for (BsonDocument command : commands) {
+            var winningPlans = winningPlans(explain(command));
+            assertFalse(winningPlans.isEmpty(), name + " has no winning plan : " + command.toJson());
+            for (Document winningPlan : winningPlans) {
+                assertFalse(winningPlan.toJson().contains("COLLSCAN"),
+                        name + " does a collection scan : " + winningPlan.toJson());
+                assertFalse(winningPlan.toJson().contains("\"stage\": \"SORT\""),
+                        name + " sorts in memory : " + winningPlan.toJson());
+            }
+        }
+    }
+
+    private Document explain(BsonDocument command) {
+        //the captured command carries session and routing fields explain does not take
+        var explained = command.clone();
+        explained.keySet().removeIf(key -> key.startsWith("$") || key.equals("lsid") || key.equals("txnNumber"));
+        var explain = new Document("explain", explained).append("verbosity", "queryPlanner");
+        var result = reactiveMongoTemplate.executeCommand(explain).block();
+        assertNotNull(result);
+        return result;
+    }
+
+    //find and findAndModify report one winning plan, an aggregate one per cursor stage
+    private static List<Document> winningPlans(Object explained) {
+        var plans = new ArrayList<Document>();
+        if (explained instanceof Document document) {
+            if (document.get("winningPlan") instanceof Document winningPlan) {
+                plans.add(winningPlan);
+            }
+            document.forEach((key, value) -> {
+                if (!key.equals("winningPlan") && !key.equals("rejectedPlans")) {
+                    plans.addAll(winningPlans(value));
+                }
+            });
+        } else if (explained instanceof List<?> list) {
+            list.forEach(element -> plans.addAll(winningPlans(element)));
+        }
+        return plans;
+    }
+
+    private static Object[] sampleArguments(Method method) {
+        var arguments = new ArrayList<>();
+        var genericTypes = method.getGenericParameterTypes();
+        for (int i = 0; i < genericTypes.length; i++) {
+            var type = method.getParameterTypes()[i];
+            if (type == Range.class) {
+                var elementType = ((ParameterizedType) genericTypes[i]).getActualTypeArguments()[0];
+                arguments.add(elementType == LocalDate.class
+                        ? Range.closed(LocalDate.parse("2005-01-01"), LocalDate.parse("2010-12-31"))
+                        : Range.closed(2005, 2010));
+            } else if (type == Integer.class || type == int.class) {
+                arguments.add(type == int.class ? 10 : 2005);
+            } else if (type == String.class) {
+                arguments.add("abc");
+            } else if (type == LocalDate.class) {
+                arguments.add(LocalDate.parse("2005-01-01"));
+            } else {
+                arguments.add(null);
+            }
+        }
+        return arguments.toArray();
+    }
+}
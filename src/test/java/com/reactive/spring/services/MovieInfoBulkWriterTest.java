@@ -0,0 +1,166 @@
+package com.reactive.spring.services;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.reactive.spring.config.MovieInfoBulkProperties;
+import com.reactive.spring.domain.BulkBatchResult;
+import com.reactive.spring.domain.MovieInfo;
+import jakarta.validation.Validation;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MovieInfoBulkWriterTest {
+
+    ReactiveMongoTemplate reactiveMongoTemplate;
+
+    MovieInfoChangeNotifier movieInfoChangeNotifier;
+
+    MovieInfoBulkProperties bulkProperties;
+
+    MovieInfoBulkWriter movieInfoBulkWriter;
+
+    //documents of every bulk write, in the order they were sent
+    List<List<MovieInfo>> written = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+        movieInfoChangeNotifier = mock(MovieInfoChangeNotifier.class);
+        bulkProperties = new MovieInfoBulkProperties();
+        bulkProperties.setBatchSize(4);
+        movieInfoBulkWriter = new MovieInfoBulkWriter();
+        ReflectionTestUtils.setField(movieInfoBulkWriter, "reactiveMongoTemplate", reactiveMongoTemplate);
+        ReflectionTestUtils.setField(movieInfoBulkWriter, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(movieInfoBulkWriter, "bulkProperties", bulkProperties);
+        ReflectionTestUtils.setField(movieInfoBulkWriter, "movieInfoChangeNotifier", movieInfoChangeNotifier);
+        //every document written unless a test says otherwise
+        bulkWrites(documents -> Mono.just(BulkWriteResult.acknowledged(documents.size(), 0, 0, 0, List.of(), List.of())));
+    }
+
+    void bulkWrites(Function<List<MovieInfo>, Mono<BulkWriteResult>> execute) {
+        when(reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MovieInfo.class)).thenAnswer(invocation -> {
+            var bulkOperations = mock(ReactiveBulkOperations.class);
+            var documents = new ArrayList<MovieInfo>();
+            when(bulkOperations.insert(anyList())).thenAnswer(insert -> {
+                documents.addAll(insert.getArgument(0));
+                written.add(documents);
+                return bulkOperations;
+            });
+            when(bulkOperations.execute()).thenAnswer(unused -> execute.apply(documents));
+            return bulkOperations;
+        });
+    }
+
+    List<BulkBatchResult> insert(MovieInfo... movieInfos) {
+        return movieInfoBulkWriter.insert(Flux.just(movieInfos)).collectList().block(Duration.ofSeconds(5));
+    }
+
+    static MovieInfo movieInfo(String id, String name, Integer year) {
+        return new MovieInfo(id, name, year, List.of("Christian Bale"), LocalDate.parse("2005-06-15"));
+    }
+
+    @Test
+    void invalidDocumentsAreCountedAndNeverSent() {
+        var batman = movieInfo(null, "Batman Begins", 2005);
+        var darkKnight = movieInfo("abc", "The Dark Knight", 2008);
+
+        var results = insert(batman, movieInfo(null, "", 2005), movieInfo(null, "Kali", -1), darkKnight);
+
+        assertEquals(List.of(new BulkBatchResult(0, 4, 2, 2, List.of(
+                "document 1 : movieInfo.name must be present",
+                "document 2 : movieInfo.year must be positive number"))), results);
+        assertEquals(List.of(List.of(batman, darkKnight)), written);
+        //ids are assigned up front so the inserted documents can be announced
+        assertNotNull(batman.getMovieInfoId());
+        assertEquals("abc", darkKnight.getMovieInfoId());
+        assertEquals(0L, batman.getVersion());
+        assertNotNull(batman.getLastModified());
+        verify(movieInfoChangeNotifier).saved(batman);
+        verify(movieInfoChangeNotifier).saved(darkKnight);
+    }
+
+    @Test
+    void batchWithoutValidDocumentsIsNotWritten() {
+        var results = insert(movieInfo(null, "", 2005), movieInfo(null, "Kali", null));
+
+        assertEquals(1, results.size());
+        assertEquals(0, results.get(0).inserted());
+        assertEquals(2, results.get(0).failed());
+        verifyNoInteractions(reactiveMongoTemplate, movieInfoChangeNotifier);
+    }
+
+    @Test
+    void writeErrorsAreReportedAgainstTheirPositionInTheBatch() {
+        //the second valid document, third in the batch once the invalid one is skipped
+        var duplicate = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1);
+        bulkWrites(documents -> Mono.error(new BulkOperationException("bulk write failed", new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(documents.size() - 1, 0, 0, 0, List.of(), List.of()),
+                List.of(duplicate), null, new ServerAddress(), Set.of()))));
+        var batman = movieInfo(null, "Batman Begins", 2005);
+        var darkKnight = movieInfo("abc", "The Dark Knight", 2008);
+        var rises = movieInfo(null, "Dark Knight Rises", 2012);
+
+        var results = insert(batman, movieInfo(null, "", 2005), darkKnight, rises);
+
+        assertEquals(List.of(new BulkBatchResult(0, 4, 2, 2, List.of(
+                "document 1 : movieInfo.name must be present",
+                "document 2 : E11000 duplicate key"))), results);
+        verify(movieInfoChangeNotifier).saved(batman);
+        verify(movieInfoChangeNotifier).saved(rises);
+        verify(movieInfoChangeNotifier, never()).saved(darkKnight);
+    }
+
+    @Test
+    void documentsAreSplitIntoBatchesOfBatchSize() {
+        bulkProperties.setBatchSize(2);
+        var movieInfos = new MovieInfo[5];
+        for (int i = 0; i < movieInfos.length; i++) {
+            movieInfos[i] = movieInfo(null, "Movie " + i, 2000 + i);
+        }
+
+        var results = insert(movieInfos);
+
+        //numbered and reported in stream order, the last batch holds the remainder
+        assertEquals(List.of(0L, 1L, 2L), results.stream().map(BulkBatchResult::batch).toList());
+        assertEquals(List.of(2, 2, 1), results.stream().map(BulkBatchResult::received).toList());
+        assertEquals(List.of(2, 2, 1), results.stream().map(BulkBatchResult::inserted).toList());
+        assertEquals(List.of(List.of(movieInfos[0], movieInfos[1]), List.of(movieInfos[2], movieInfos[3]), List.of(movieInfos[4])),
+                written);
+    }
+
+    @Test
+    void errorMessagesAreCappedButTheFailedCountIsNot() {
+        bulkProperties.setMaxErrorsPerBatch(1);
+
+        var results = insert(movieInfo(null, "", 2005), movieInfo(null, "", 2006), movieInfo(null, "", 2007));
+
+        assertEquals(3, results.get(0).failed());
+        assertEquals(List.of("document 0 : movieInfo.name must be present"), results.get(0).errors());
+    }
+}
@@ -0,0 +1,120 @@
+package com.reactive.spring.services;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.model.changestream.OperationType;
+import com.reactive.spring.config.MovieInfoChangesProperties;
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.domain.MovieInfoChangeEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MovieInfoChangeFeedTest {
+
+    ReactiveMongoTemplate reactiveMongoTemplate;
+
+    MovieInfoChangeFeed movieInfoChangeFeed;
+
+    @BeforeEach
+    void setUp() {
+        reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+        when(reactiveMongoTemplate.getCollectionName(MovieInfo.class)).thenReturn("movieInfo");
+        movieInfoChangeFeed = new MovieInfoChangeFeed(reactiveMongoTemplate, new MovieInfoChangesProperties(), new SimpleMeterRegistry());
+    }
+
+    @SafeVarargs
+    final void changeStreams(Flux<ChangeStreamEvent<MovieInfo>> first, Flux<ChangeStreamEvent<MovieInfo>>... then) {
+        when(reactiveMongoTemplate.changeStream(eq("movieInfo"), any(ChangeStreamOptions.class), eq(MovieInfo.class)))
+                .thenReturn(first, then);
+    }
+
+    List<ChangeStreamOptions> openedWith(int streams) {
+        var options = ArgumentCaptor.forClass(ChangeStreamOptions.class);
+        verify(reactiveMongoTemplate, timeout(5000).times(streams)).changeStream(eq("movieInfo"), options.capture(), eq(MovieInfo.class));
+        return options.getAllValues();
+    }
+
+    @SuppressWarnings("unchecked")
+    static ChangeStreamEvent<MovieInfo> saved(String id, String token) {
+        ChangeStreamEvent<MovieInfo> event = mock(ChangeStreamEvent.class);
+        when(event.getOperationType()).thenReturn(OperationType.INSERT);
+        when(event.getBody()).thenReturn(new MovieInfo(id, "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15")));
+        when(event.getResumeToken()).thenReturn(token(token));
+        return event;
+    }
+
+    static BsonValue token(String data) {
+        return new BsonDocument("_data", new BsonString(data));
+    }
+
+    @Test
+    void failedCursorResumesAfterTheLastEvent() {
+        changeStreams(Flux.just(saved("1", "t1"), saved("2", "t2")).concatWith(Flux.error(new IllegalStateException("primary stepped down"))),
+                Flux.just(saved("3", "t3")).concatWith(Flux.never()));
+
+        StepVerifier.create(movieInfoChangeFeed.changes(null)
+                        .filter(event -> !MovieInfoChangeEvent.HEARTBEAT.equals(event.type()))
+                        .map(MovieInfoChangeEvent::movieInfoId))
+                .expectNext("1", "2", "3")
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        var options = openedWith(2);
+        assertEquals(Optional.empty(), options.get(0).getResumeToken());
+        //changes written while the cursor was down are read from t2 on, not skipped
+        assertEquals(Optional.of(token("t2")), options.get(1).getResumeToken());
+    }
+
+    @Test
+    void expiredTokenReopensFromNow() {
+        var historyLost = new MongoCommandException(new BsonDocument("ok", new BsonInt32(0))
+                .append("code", new BsonInt32(286))
+                .append("errmsg", new BsonString("resume point may no longer be in the oplog")), new ServerAddress());
+        changeStreams(Flux.just(saved("1", "t1")).concatWith(Flux.error(new IllegalStateException("network"))),
+                Flux.error(historyLost),
+                Flux.never());
+
+        var subscription = movieInfoChangeFeed.changes(null).subscribe();
+
+        var options = openedWith(3);
+        assertEquals(Optional.of(token("t1")), options.get(1).getResumeToken());
+        assertEquals(Optional.empty(), options.get(2).getResumeToken());
+        subscription.dispose();
+    }
+
+    @Test
+    void feedReopenedForNewSubscribersStartsFromNow() {
+        changeStreams(Flux.just(saved("1", "t1")).concatWith(Flux.never()), Flux.never());
+
+        movieInfoChangeFeed.changes(null).take(1).blockLast();
+        var subscription = movieInfoChangeFeed.changes(null).subscribe();
+
+        var options = openedWith(2);
+        assertEquals(Optional.empty(), options.get(1).getResumeToken());
+        subscription.dispose();
+    }
+}
@@ -0,0 +1,135 @@
+package com.reactive.spring.services;
+
+import com.reactive.spring.config.MovieInfoReadPolicyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieInfoHedgeTest {
+
+    static final long MILLIS = 1_000_000;
+
+    MovieInfoHedge hedge;
+
+    SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new MovieInfoReadPolicyProperties.Hedging();
+        properties.setMinSamples(10);
+        properties.setPercentile(0.9);
+        properties.setMinDelay(Duration.ofMillis(1));
+        properties.setMaxDelay(Duration.ofMillis(50));
+        properties.setBudgetRatio(0.5);
+        meterRegistry = new SimpleMeterRegistry();
+        hedge = new MovieInfoHedge("getMovieInfoById", properties, meterRegistry);
+    }
+
+    double hedges(String outcome) {
+        return meterRegistry.get("movieinfo.read.hedges").tag("outcome", outcome).counter().count();
+    }
+
+    //a fast request earns half a hedge
+    void earnCredit() {
+        hedge.hedge(Mono.just("primary"), Mono.just("hedge")).block();
+    }
+
+    Mono<String> slow(String answer) {
+        return Mono.delay(Duration.ofMillis(500)).thenReturn(answer);
+    }
+
+    @Test
+    void delayFollowsThePercentile() {
+        for (int i = 1; i < 10; i++) {
+            hedge.record(i * MILLIS);
+            assertNull(hedge.delay());
+        }
+        hedge.record(10 * MILLIS);
+        assertEquals(Duration.ofMillis(9), hedge.delay());
+
+        //clamped to maxDelay
+        for (int i = 0; i < 64; i++) {
+            hedge.record(1000 * MILLIS);
+        }
+        assertEquals(Duration.ofMillis(50), hedge.delay());
+    }
+
+    @Test
+    void noHedgeBeforeMinSamples() {
+        StepVerifier.create(hedge.hedge(Mono.just("primary"), Mono.just("hedge")))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertEquals(0, hedges("sent"));
+    }
+
+    @Test
+    void slowFirstQueryLosesToTheHedge() {
+        for (int i = 0; i < 10; i++) {
+            hedge.record(MILLIS);
+        }
+        earnCredit();
+
+        StepVerifier.create(hedge.hedge(slow("primary"), Mono.just("hedge")))
+                .expectNext("hedge")
+                .verifyComplete();
+
+        assertEquals(1, hedges("sent"));
+        assertEquals(1, hedges("won"));
+    }
+
+    @Test
+    void failedHedgeLeavesTheAnswerToTheFirstQuery() {
+        for (int i = 0; i < 10; i++) {
+            hedge.record(MILLIS);
+        }
+        earnCredit();
+
+        StepVerifier.create(hedge.hedge(slow("primary"), Mono.error(new IllegalStateException("secondary down"))))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertEquals(1, hedges("sent"));
+        assertEquals(0, hedges("won"));
+    }
+
+    @Test
+    void emptyHedgeIsNoAnswer() {
+        for (int i = 0; i < 10; i++) {
+            hedge.record(MILLIS);
+        }
+        earnCredit();
+
+        //a secondary that has not seen the document yet must not turn it into a 404
+        StepVerifier.create(hedge.hedge(slow("primary"), Mono.empty()))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertEquals(1, hedges("sent"));
+        assertEquals(0, hedges("won"));
+    }
+
+    @Test
+    void hedgesAreBoundedByTheBudget() {
+        for (int i = 0; i < 10; i++) {
+            hedge.record(MILLIS);
+        }
+
+        //half a hedge per request, the second request pays for the first hedge
+        StepVerifier.create(hedge.hedge(slow("primary"), Mono.just("hedge")))
+                .expectNext("primary")
+                .verifyComplete();
+        StepVerifier.create(hedge.hedge(slow("primary"), Mono.just("hedge")))
+                .expectNext("hedge")
+                .verifyComplete();
+
+        assertEquals(1, hedges("skipped"));
+        assertEquals(1, hedges("sent"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.reactive.spring.services;
+
+import com.reactive.spring.config.MovieInfoReadPolicyProperties;
+import com.reactive.spring.exceptionHandler.OperationTimeoutException;
+import com.reactive.spring.repository.MovieInfoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.mock;
+
+class MovieInfoReadPolicyTest {
+
+    MovieInfoReadPolicy movieInfoReadPolicy;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new MovieInfoReadPolicyProperties();
+        properties.setDefaultTimeout(Duration.ofSeconds(5));
+        movieInfoReadPolicy = new MovieInfoReadPolicy(properties, mock(MovieInfoRepository.class),
+                mock(ReactiveMongoTemplate.class), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void monoMustAnswerWithinTheDeadline() {
+        StepVerifier.withVirtualTime(() -> movieInfoReadPolicy.deadline("getMovieInfoById", Mono.never()))
+                .expectSubscription()
+                .thenAwait(Duration.ofSeconds(5))
+                .expectError(OperationTimeoutException.class)
+                .verify();
+    }
+
+    @Test
+    void fluxMustStartWithinTheDeadline() {
+        StepVerifier.withVirtualTime(() -> movieInfoReadPolicy.deadline("getAllMovieInfos", Flux.never()))
+                .expectSubscription()
+                .thenAwait(Duration.ofSeconds(5))
+                .expectError(OperationTimeoutException.class)
+                .verify();
+    }
+
+    @Test
+    void slowConsumerIsNotCutOffMidStream() {
+        //one element, then a consumer that stops requesting for far longer than the deadline
+        StepVerifier.withVirtualTime(() -> movieInfoReadPolicy.deadline("getAllMovieInfos", Flux.range(0, 3)), 1)
+                .expectNext(0)
+                .thenAwait(Duration.ofMinutes(10))
+                .thenRequest(2)
+                .expectNext(1, 2)
+                .verifyComplete();
+    }
+
+    @Test
+    void slowElementsAfterTheFirstAreNotCutOff() {
+        StepVerifier.withVirtualTime(() -> movieInfoReadPolicy.deadline("getMovieInfoChanges",
+                        Flux.interval(Duration.ofSeconds(1), Duration.ofMinutes(1)).take(2)))
+                .thenAwait(Duration.ofMinutes(2))
+                .expectNext(0L, 1L)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,80 @@
+package com.reactive.spring.services;
+
+import com.reactive.spring.config.MovieInfoCoalescingProperties;
+import com.reactive.spring.domain.MovieInfo;
+import com.reactive.spring.instrumentation.MovieInfoMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MovieInfoSingleFlightTest {
+
+    MovieInfoSingleFlight movieInfoSingleFlight;
+
+    SimpleMeterRegistry meterRegistry;
+
+    AtomicInteger queries;
+
+    MovieInfo movieInfo = new MovieInfo("abc", "Dark Knight Rises",
+            2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        movieInfoSingleFlight = new MovieInfoSingleFlight(new MovieInfoCoalescingProperties(), new MovieInfoMetrics(meterRegistry));
+        queries = new AtomicInteger();
+    }
+
+    Mono<MovieInfo> query(Sinks.One<MovieInfo> result) {
+        queries.incrementAndGet();
+        return result.asMono();
+    }
+
+    @Test
+    void concurrentReadsShareOneQuery() {
+        var result = Sinks.<MovieInfo>one();
+        var movieInfos = Flux.range(0, 10)
+                .flatMap(i -> movieInfoSingleFlight.mono("getMovieInfoById", "abc", () -> query(result)))
+                .collectList()
+                .toFuture();
+        result.tryEmitValue(movieInfo);
+
+        assertEquals(10, movieInfos.join().size());
+        assertEquals(1, queries.get());
+        assertEquals(9, meterRegistry.counter("movieinfo.operation.coalesced", "operation", "getMovieInfoById").count());
+        assertEquals(0, movieInfoSingleFlight.inFlightCount());
+    }
+
+    @Test
+    void cancelledOrFinishedQueryIsNotShared() {
+        movieInfoSingleFlight.mono("getMovieInfoById", "abc", () -> query(Sinks.one())).subscribe().dispose();
+        movieInfoSingleFlight.mono("getMovieInfoById", "abc", () -> query(Sinks.one()).or(Mono.just(movieInfo))).block();
+        movieInfoSingleFlight.mono("getMovieInfoById", "abc", () -> query(Sinks.one()).or(Mono.just(movieInfo))).block();
+
+        assertEquals(3, queries.get());
+        assertEquals(0, movieInfoSingleFlight.inFlightCount());
+    }
+
+    @Test
+    void emptyResultIsShared() {
+        var result = Sinks.<MovieInfo>one();
+        var movieInfos = Flux.range(0, 5)
+                .flatMap(i -> movieInfoSingleFlight.mono("getMovieInfoValidators", "missing", () -> query(result)))
+                .collectList()
+                .toFuture();
+        result.tryEmitEmpty();
+
+        assertEquals(List.of(), movieInfos.join());
+        assertEquals(1, queries.get());
+        assertEquals(0, movieInfoSingleFlight.inFlightCount());
+    }
+}
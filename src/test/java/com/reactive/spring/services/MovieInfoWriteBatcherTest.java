@@ -0,0 +1,143 @@
+package com.reactive.spring.services;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.reactive.spring.config.MovieInfoWriteBatchingProperties;
+import com.reactive.spring.domain.MovieInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MovieInfoWriteBatcherTest {
+
+    ReactiveMongoTemplate reactiveMongoTemplate;
+
+    ReactiveBulkOperations bulkOperations;
+
+    MovieInfoChangeNotifier movieInfoChangeNotifier;
+
+    SimpleMeterRegistry meterRegistry;
+
+    MovieInfoWriteBatcher movieInfoWriteBatcher;
+
+    @BeforeEach
+    void setUp() {
+        reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+        bulkOperations = mock(ReactiveBulkOperations.class);
+        movieInfoChangeNotifier = mock(MovieInfoChangeNotifier.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MovieInfo.class)).thenReturn(bulkOperations);
+
+        var properties = new MovieInfoWriteBatchingProperties();
+        properties.setEnabled(true);
+        properties.setMaxBatchSize(3);
+        //long enough that only the size closes a batch in these tests
+        properties.setMaxDelay(Duration.ofSeconds(30));
+        movieInfoWriteBatcher = new MovieInfoWriteBatcher(reactiveMongoTemplate, properties, movieInfoChangeNotifier, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        movieInfoWriteBatcher.close();
+    }
+
+    MovieInfo movieInfo(String id, String name) {
+        return new MovieInfo(id, name, 2024, List.of("Amitab Bachan"), LocalDate.parse("2024-06-24"));
+    }
+
+    @Test
+    void concurrentSavesShareOneBulkWrite() {
+        when(bulkOperations.execute()).thenReturn(Mono.just(BulkWriteResult.acknowledged(2, 0, 0, 1, List.of(), List.of())));
+
+        var saved = Flux.just(movieInfo(null, "Kali"), movieInfo(null, "Kalki"), movieInfo("abc", "Dark Knight Rises"))
+                .flatMap(movieInfoWriteBatcher::save)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertNotNull(saved);
+        assertEquals(3, saved.size());
+        saved.forEach(movieInfo -> assertNotNull(movieInfo.getMovieInfoId()));
+        verify(reactiveMongoTemplate, times(1)).bulkOps(BulkOperations.BulkMode.UNORDERED, MovieInfo.class);
+        verify(bulkOperations, times(2)).insert(any(Object.class));
+        verify(bulkOperations).replaceOne(any(), eq(saved.stream().filter(m -> "abc".equals(m.getMovieInfoId())).findFirst().orElseThrow()), any());
+        verify(movieInfoChangeNotifier, times(3)).saved(any());
+
+        var batchSizes = meterRegistry.get("movieinfo.write.batch.size").summary();
+        assertEquals(1, batchSizes.count());
+        assertEquals(3, batchSizes.totalAmount());
+    }
+
+    @Test
+    void writeErrorsGoToTheirOwnCaller() {
+        var duplicate = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1);
+        when(bulkOperations.execute()).thenReturn(Mono.error(new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()), List.of(duplicate), null, new ServerAddress(), Set.of())));
+
+        var first = movieInfoWriteBatcher.save(movieInfo(null, "Kali")).cache();
+        var second = movieInfoWriteBatcher.save(movieInfo(null, "Kalki")).cache();
+        var third = movieInfoWriteBatcher.save(movieInfo(null, "Kalkaji")).cache();
+        first.subscribe(movieInfo -> {}, ex -> {});
+        second.subscribe(movieInfo -> {}, ex -> {});
+        third.subscribe(movieInfo -> {}, ex -> {});
+
+        StepVerifier.create(first).expectNextCount(1).verifyComplete();
+        StepVerifier.create(second).expectError(DuplicateKeyException.class).verify(Duration.ofSeconds(5));
+        StepVerifier.create(third).expectNextCount(1).verifyComplete();
+        verify(movieInfoChangeNotifier, times(2)).saved(any());
+    }
+
+    @Test
+    void failedBulkWriteFailsEveryCaller() {
+        when(bulkOperations.execute()).thenReturn(Mono.error(new IllegalStateException("mongo unavailable")));
+
+        StepVerifier.create(Flux.range(0, 3)
+                        .flatMapDelayError(i -> movieInfoWriteBatcher.save(movieInfo(null, "Kali " + i)), 3, 1))
+                .expectErrorSatisfies(ex -> assertEquals(3, ex.getSuppressed().length))
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void slowBulkWritesDoNotStallTheBatcher() {
+        //defaults : 5ms batches, at most 4 of them in flight while each bulk write takes 200ms
+        movieInfoWriteBatcher.close();
+        var properties = new MovieInfoWriteBatchingProperties();
+        properties.setEnabled(true);
+        movieInfoWriteBatcher = new MovieInfoWriteBatcher(reactiveMongoTemplate, properties, movieInfoChangeNotifier, meterRegistry);
+        when(bulkOperations.execute()).thenAnswer(invocation -> Mono.delay(Duration.ofMillis(200))
+                .thenReturn(BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of())));
+
+        var saved = Flux.range(0, 300)
+                .delayElements(Duration.ofMillis(1))
+                .flatMap(i -> movieInfoWriteBatcher.save(movieInfo(null, "Kali " + i)), 300)
+                .collectList()
+                .block(Duration.ofSeconds(20));
+
+        assertNotNull(saved);
+        assertEquals(300, saved.size());
+    }
+}
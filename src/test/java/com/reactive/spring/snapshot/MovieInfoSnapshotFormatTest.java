@@ -0,0 +1,124 @@
+package com.reactive.spring.snapshot;
+
+import com.reactive.spring.domain.MovieInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieInfoSnapshotFormatTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTrip() throws IOException {
+        var batman = new MovieInfo("1", "Batman Begins",
+                2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
+        batman.setVersion(3L);
+        batman.setLastModified(Instant.parse("2024-06-24T10:15:30.123Z"));
+        //nulls and non ascii names survive
+        var sparse = new MovieInfo("2", "Amélie", null, null, null);
+        var movieInfos = List.of(batman, sparse);
+        var snapshot = directory.resolve("catalog.snap");
+
+        try (var writer = new MovieInfoSnapshotWriter(snapshot, 64, 0)) {
+            movieInfos.forEach(writer::write);
+            writer.finish();
+        }
+
+        assertFalse(Files.exists(directory.resolve("catalog.snap.tmp")));
+        assertEquals(movieInfos, readAll(snapshot));
+    }
+
+    @Test
+    void recordsLargerThanTheBuffer() throws IOException {
+        var movieInfos = new ArrayList<MovieInfo>();
+        for (int i = 0; i < 100; i++) {
+            movieInfos.add(new MovieInfo("id" + i, "Movie " + "x".repeat(i * 10),
+                    2000 + i % 20, List.of("Cast " + i), LocalDate.ofEpochDay(10_000 + i)));
+        }
+        var snapshot = directory.resolve("large.snap");
+
+        try (var writer = new MovieInfoSnapshotWriter(snapshot, 256, 0)) {
+            movieInfos.forEach(writer::write);
+            writer.finish();
+        }
+
+        assertEquals(movieInfos, readAll(snapshot));
+    }
+
+    @Test
+    void abandonedExportLeavesNoFile() throws IOException {
+        var snapshot = directory.resolve("abandoned.snap");
+
+        try (var writer = new MovieInfoSnapshotWriter(snapshot, 64, 0)) {
+            writer.write(new MovieInfo("1", "Batman Begins", 2005, List.of(), LocalDate.parse("2005-06-15")));
+        }
+
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void keepsTheOperationTime() throws IOException {
+        var snapshot = directory.resolve("timed.snap");
+        //a BSON timestamp, seconds in the high half
+        var operationTime = (1719224130L << 32) | 7;
+
+        try (var writer = new MovieInfoSnapshotWriter(snapshot, 64, operationTime)) {
+            writer.write(new MovieInfo("1", "Batman Begins", 2005, List.of(), LocalDate.parse("2005-06-15")));
+            writer.finish();
+        }
+
+        try (var reader = new MovieInfoSnapshotReader(snapshot)) {
+            assertEquals(operationTime, reader.operationTime());
+            assertEquals(1, reader.count());
+        }
+    }
+
+    @Test
+    void corruptLengthsStayWithinTheRecord() throws IOException {
+        var snapshot = directory.resolve("corrupt.snap");
+        try (var writer = new MovieInfoSnapshotWriter(snapshot, 64, 0)) {
+            writer.write(new MovieInfo("1", "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15")));
+            writer.finish();
+        }
+        //header, record length, presence byte and the one byte id come before the name length
+        var bytes = Files.readAllBytes(snapshot);
+        ByteBuffer.wrap(bytes).putInt(MovieInfoSnapshotFormat.HEADER_SIZE + 4 + 1 + 4 + 1, Integer.MAX_VALUE - 8);
+        Files.write(snapshot, bytes);
+
+        try (var reader = new MovieInfoSnapshotReader(snapshot)) {
+            assertThrows(IOException.class, reader::next);
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        var notASnapshot = Files.writeString(directory.resolve("movies.json"), "[{\"name\":\"Batman Begins\"}]");
+
+        assertThrows(IOException.class, () -> new MovieInfoSnapshotReader(notASnapshot));
+    }
+
+    private static List<MovieInfo> readAll(Path snapshot) throws IOException {
+        var movieInfos = new ArrayList<MovieInfo>();
+        try (var reader = new MovieInfoSnapshotReader(snapshot)) {
+            for (var movieInfo = reader.next(); movieInfo != null; movieInfo = reader.next()) {
+                movieInfos.add(movieInfo);
+            }
+            assertEquals(reader.count(), movieInfos.size());
+        }
+        return movieInfos;
+    }
+}